@@ -0,0 +1,57 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.Disposable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to deliver a burst of changes to every subscriber of a {@link ChangeFeed}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview"})
+@State(Scope.Benchmark)
+public class ChangeFeedBenchmark {
+
+    private static final int CHANGES = 100;
+
+    @Param({"100", "1000", "5000"})
+    int subscribers;
+
+    ChangeFeed feed;
+    List<Disposable> subscriptions;
+    volatile CountDownLatch received;
+
+    @Setup
+    public void setUp() {
+        feed = new ChangeFeed(65536, new SimpleMeterRegistry());
+        received = new CountDownLatch(0);
+        subscriptions = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(feed.changes().subscribe(change -> received.countDown()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Benchmark
+    public void publish() throws InterruptedException {
+        received = new CountDownLatch(subscribers * CHANGES);
+        for (int i = 0; i < CHANGES; i++) {
+            feed.publishAfterCommit(Change.Type.NOTE_UPDATED, i, i);
+        }
+        received.await();
+    }
+
+}
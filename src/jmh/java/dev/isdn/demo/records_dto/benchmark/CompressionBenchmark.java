@@ -0,0 +1,73 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.common.CompressionCodec;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of note content compression per call, for content of {@code kb} kilobytes.
+ * The characters of the content and of the encoded content are counted by {@link #encode} as the
+ * {@code characters} and {@code encodedCharacters} secondary results, their quotient is the compression ratio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    @Param({"markdown", "json"})
+    String kind;
+
+    @Param({"1", "16", "256"})
+    int kb;
+
+    @Param({"1", "6"})
+    int level;
+
+    private CompressionCodec codec;
+    private String content;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        codec = new CompressionCodec(256, level);
+        content = content(kind, kb * 1024);
+        encoded = codec.encode(content);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Characters {
+
+        public long characters;
+        public long encodedCharacters;
+    }
+
+    private static String content(String kind, int length) {
+        StringBuilder text = new StringBuilder(length + 128).append("json".equals(kind) ? "[" : "# Note\n");
+        for (int i = 0; text.length() < length; i++) {
+            text.append(switch (kind) {
+                case "json" -> "{\"id\":" + (7_000_000_000_000L + i * 7919L) + ",\"name\":\"tag_" + i % 97
+                        + "\",\"color\":\"" + Integer.toHexString(0x100000 + i * 31 % 0xEFFFFF) + "\"},";
+                default -> i % 10 == 0 ? "\n## Section " + i / 10 + "\n\n" : "- [ ] item " + i + " in `notes/" + i % 13 + ".md`\n";
+            });
+        }
+        return text.substring(0, length);
+    }
+
+    @Benchmark
+    public String encode(Characters counters) {
+        String result = codec.encode(content);
+        counters.characters += content.length();
+        counters.encodedCharacters += result.length();
+        return result;
+    }
+
+    @Benchmark
+    public String decode() {
+        return CompressionCodec.decode(encoded);
+    }
+
+}
@@ -0,0 +1,39 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.common.Functions;
+import org.openjdk.jmh.annotations.*;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class FunctionsBenchmark {
+
+    @State(Scope.Thread)
+    public static class TagName {
+
+        @Param({"test_tag_1", " test-tag+1 ", "test#tag"})
+        String name;
+    }
+
+    @State(Scope.Thread)
+    public static class TagColor {
+
+        @Param({"aabbcc", " FFFFFF ", "ff>eea"})
+        String color;
+    }
+
+    @Benchmark
+    public Optional<String> checkTagName(TagName tag) {
+        return Functions.checkTagName.apply(tag.name);
+    }
+
+    @Benchmark
+    public Optional<String> checkTagColor(TagColor tag) {
+        return Functions.checkTagColor.apply(tag.color);
+    }
+
+}
@@ -0,0 +1,60 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagContent;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class JsonBenchmark {
+
+    @Param({"16", "4096"})
+    private int contentLength;
+
+    private NoteDto note;
+    private TagDto tag;
+    private TagContent tagContent;
+
+    private ObjectReader noteReader, tagReader, tagContentReader;
+    private ObjectWriter noteWriter, tagWriter, tagContentWriter;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        note = new NoteDto(8465407150649195493L, 1665000000L, 1665000100L, "a".repeat(contentLength), 1665000100000L);
+        tag = new TagDto(4760561560720237306L, "test_tag", "AAAAAA", 1665000100000L);
+        tagContent = new TagContent("test_tag", "AAAAAA");
+        noteReader = mapper.readerFor(NoteDto.class);
+        noteWriter = mapper.writerFor(NoteDto.class);
+        tagReader = mapper.readerFor(TagDto.class);
+        tagWriter = mapper.writerFor(TagDto.class);
+        tagContentReader = mapper.readerFor(TagContent.class);
+        tagContentWriter = mapper.writerFor(TagContent.class);
+    }
+
+    @Benchmark
+    public NoteDto noteDtoRoundTrip() throws IOException {
+        return noteReader.readValue(noteWriter.writeValueAsBytes(note));
+    }
+
+    @Benchmark
+    public TagDto tagDtoRoundTrip() throws IOException {
+        return tagReader.readValue(tagWriter.writeValueAsBytes(tag));
+    }
+
+    @Benchmark
+    public TagContent tagContentRoundTrip() throws IOException {
+        return tagContentReader.readValue(tagContentWriter.writeValueAsBytes(tagContent));
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.note.NoteSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of {@link NoteSearchIndex} filled with generated notes of 30 words.
+ * Word ranks follow a Zipf-like distribution over a vocabulary of 50 000 words,
+ * so the frequent words have long posting lists and the rare ones short lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class NoteSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int WORDS = 30;
+
+    @Param({"100000", "1000000"})
+    int notes;
+
+    NoteSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        index = new NoteSearchIndex(null);
+        StringBuilder content = new StringBuilder();
+        for (int id = 1; id <= notes; id++) {
+            content.setLength(0);
+            for (int i = 0; i < WORDS; i++) {
+                content.append(word(random)).append(' ');
+            }
+            index.putAfterCommit(id, content.toString(), 1);
+        }
+    }
+
+    private static String word(SplittableRandom random) {
+        // rank ~ 1 / uniform, clamped to the vocabulary
+        int rank = (int) Math.min(VOCABULARY - 1, 1 / Math.max(1e-6, random.nextDouble()) - 1);
+        return "w" + rank;
+    }
+
+    @Benchmark
+    public List<Long> frequentWord() {
+        return index.search("w0", 100);
+    }
+
+    @Benchmark
+    public List<Long> rareWord() {
+        return index.search("w20000", 100);
+    }
+
+    @Benchmark
+    public List<Long> frequentAndRareWords() {
+        return index.search("w0 w1 w500", 100);
+    }
+
+    @Benchmark
+    public List<Long> frequentWords() {
+        return index.search("w0 w1 w2", 100);
+    }
+
+}
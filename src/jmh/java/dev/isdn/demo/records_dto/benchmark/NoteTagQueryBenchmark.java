@@ -0,0 +1,71 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.note.NoteTagIndex;
+import dev.isdn.demo.records_dto.app.domain.note.TagExpression;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First pages of {@link NoteTagIndex} queries over generated notes with 5 tags each.
+ * Tag ranks follow a Zipf-like distribution over 1000 tags, so tag 0 is linked to most notes and tag 500 to few.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class NoteTagQueryBenchmark {
+
+    private static final int TAGS = 1000;
+    private static final int NOTE_TAGS = 5;
+    private static final int PAGE = 100;
+
+    @Param({"100000", "1000000"})
+    int notes;
+
+    NoteTagIndex index;
+    TagExpression frequentTags;
+    TagExpression rareTag;
+    TagExpression mixedTags;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        index = new NoteTagIndex(null);
+        // the changes come in version order, so the index does not check them in the DB
+        long version = 0;
+        for (int id = 1; id <= notes; id++) {
+            index.addNoteAfterCommit(id, ++version);
+            for (int i = 0; i < NOTE_TAGS; i++) {
+                index.linkAfterCommit(id, tag(random), ++version);
+            }
+        }
+        frequentTags = TagExpression.parse("0 AND 1").orElseThrow();
+        rareTag = TagExpression.parse("500").orElseThrow();
+        mixedTags = TagExpression.parse("(0 OR 2) AND NOT 1 AND NOT 3").orElseThrow();
+    }
+
+    private static long tag(SplittableRandom random) {
+        // rank ~ 1 / uniform, clamped to the tags
+        return (long) Math.min(TAGS - 1, 1 / Math.max(1e-6, random.nextDouble()) - 1);
+    }
+
+    @Benchmark
+    public List<NoteTagIndex.Match> frequentTags() {
+        return index.query(frequentTags, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<NoteTagIndex.Match> rareTag() {
+        return index.query(rareTag, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<NoteTagIndex.Match> mixedTags() {
+        return index.query(mixedTags, 0, PAGE);
+    }
+
+}
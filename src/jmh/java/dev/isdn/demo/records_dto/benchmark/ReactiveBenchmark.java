@@ -0,0 +1,90 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.App;
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
+import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * The JPA services on {@link ServiceExecutor} against the R2DBC services of the {@code r2dbc} profile.
+ * Every invocation runs {@code concurrency} calls at once and waits for all of them,
+ * so the score is the number of such batches per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class ReactiveBenchmark {
+
+    @Param({"16", "256"})
+    int concurrency;
+
+    ConfigurableApplicationContext context;
+    ServiceExecutor serviceExecutor;
+    NoteService noteService;
+    ReactiveNoteService reactiveNoteService;
+    long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(App.class)
+                .properties("spring.config.name:app")
+                .profiles("r2dbc")
+                .web(WebApplicationType.NONE)
+                .run();
+        serviceExecutor = context.getBean(ServiceExecutor.class);
+        noteService = context.getBean(NoteService.class);
+        reactiveNoteService = context.getBean(ReactiveNoteService.class);
+        ids = Flux.range(0, 1000)
+                .concatMap(i -> reactiveNoteService.createNote(new NoteContent("benchmark note " + i)))
+                .map(NoteDto::id)
+                .collectList()
+                .map(list -> list.stream().mapToLong(Long::longValue).toArray())
+                .block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long getNoteJpa() {
+        return run(i -> serviceExecutor.call(() -> noteService.getNoteById(ids[i % ids.length]).orElseThrow()));
+    }
+
+    @Benchmark
+    public long getNoteR2dbc() {
+        return run(i -> reactiveNoteService.getNoteById(ids[i % ids.length]));
+    }
+
+    @Benchmark
+    public long createNoteJpa() {
+        return run(i -> serviceExecutor.call(() -> noteService.createNote("note " + i).orElseThrow()));
+    }
+
+    @Benchmark
+    public long createNoteR2dbc() {
+        return run(i -> reactiveNoteService.createNote(new NoteContent("note " + i)));
+    }
+
+    private long run(IntFunction<Mono<NoteDto>> call) {
+        return Flux.range(0, concurrency)
+                .flatMap(call::apply, concurrency)
+                .count()
+                .block();
+    }
+
+}
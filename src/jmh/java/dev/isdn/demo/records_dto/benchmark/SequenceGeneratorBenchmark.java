@@ -0,0 +1,50 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.app.domain.common.BlockSequenceGenerator;
+import dev.isdn.demo.records_dto.app.domain.common.SequenceGenerator;
+import dev.isdn.demo.records_dto.app.domain.common.TimeOrderedSequenceGenerator;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class SequenceGeneratorBenchmark {
+
+    @Param({"sequence", "block", "time-ordered"})
+    private String strategy;
+
+    private SequenceGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = switch (strategy) {
+            case "sequence" -> new SequenceGenerator();
+            case "block" -> new BlockSequenceGenerator();
+            case "time-ordered" -> new TimeOrderedSequenceGenerator();
+            default -> throw new IllegalArgumentException(strategy);
+        };
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long getNumber1Thread() {
+        return generator.getNumber();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long getNumber4Threads() {
+        return generator.getNumber();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long getNumberMaxThreads() {
+        return generator.getNumber();
+    }
+
+}
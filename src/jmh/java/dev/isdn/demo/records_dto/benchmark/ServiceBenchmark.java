@@ -0,0 +1,85 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.App;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end service calls against the in-memory H2 database configured in {@code app.yml}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Context {
+
+        ConfigurableApplicationContext context;
+        NoteService noteService;
+        TagService tagService;
+        final AtomicLong names = new AtomicLong();
+
+        @Setup
+        public void setUp() {
+            context = new SpringApplicationBuilder(App.class)
+                    .properties("spring.config.name:app")
+                    .web(WebApplicationType.NONE)
+                    .run();
+            noteService = context.getBean(NoteService.class);
+            tagService = context.getBean(TagService.class);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NoteWithTag {
+
+        NoteDto note;
+        TagDto tag;
+
+        @Setup
+        public void setUp(Context context) {
+            note = context.noteService.createNote("benchmark note").orElseThrow();
+            tag = context.tagService.createTag("benchmark_tag_" + context.names.incrementAndGet()).orElseThrow();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<TagDto> createTag(Context context) {
+        return context.tagService.createTag("tag_" + context.names.incrementAndGet(), "AAAAAA");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<TagDto> createTag4Threads(Context context) {
+        return context.tagService.createTag("tag_" + context.names.incrementAndGet(), "AAAAAA");
+    }
+
+    /**
+     * Attaches and detaches the same tag, so the note does not grow between invocations.
+     */
+    @Benchmark
+    @Threads(1)
+    public Optional<NoteDto> addTagToNote(Context context, NoteWithTag fixture) {
+        context.noteService.addTagToNote(fixture.note, fixture.tag).orElseThrow();
+        return context.noteService.deleteTagFromNote(fixture.note, fixture.tag);
+    }
+
+}
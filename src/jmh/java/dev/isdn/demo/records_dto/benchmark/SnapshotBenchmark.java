@@ -0,0 +1,115 @@
+package dev.isdn.demo.records_dto.benchmark;
+
+import dev.isdn.demo.records_dto.App;
+import dev.isdn.demo.records_dto.app.domain.common.DatabaseSnapshot;
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
+import dev.isdn.demo.records_dto.app.domain.common.SnapshotStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export and load of a {@link DatabaseSnapshot} of generated notes with 500 characters of content
+ * and 2 of 1000 tags each, against the in-memory H2 database configured in {@code app.yml}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final int TAGS = 1000;
+    private static final int NOTE_TAGS = 2;
+    private static final int BATCH = 1000;
+
+    @Param({"100000", "1000000"})
+    int notes;
+
+    ConfigurableApplicationContext context;
+    DatabaseSnapshot snapshot;
+    JdbcTemplate jdbcTemplate;
+    Path path;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(App.class)
+                .properties("spring.config.name:app", "snapshot.path:")
+                .web(WebApplicationType.NONE)
+                .run();
+        snapshot = context.getBean(DatabaseSnapshot.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        path = Files.createTempFile("benchmark", ".snapshot");
+        seed();
+        snapshot.export(path);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void seed() {
+        SplittableRandom random = new SplittableRandom(1);
+        long version = EntityVersionType.nextVersion();
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int id = 1; id <= TAGS; id++) {
+            rows.add(new Object[]{id, version, "tag_" + id, "FFFFFF"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tags (id, version, name, color) VALUES (?, ?, ?, ?)", rows);
+        String content = "x".repeat(490);
+        for (int from = 1; from <= notes; from += BATCH) {
+            List<Object[]> noteRows = new ArrayList<>(BATCH);
+            List<Object[]> linkRows = new ArrayList<>(BATCH * NOTE_TAGS);
+            for (int id = from; id < from + BATCH && id <= notes; id++) {
+                String noteContent = content + String.format("%010d", id);
+                noteRows.add(new Object[]{id, version, 1665000000L, 1665000000L + id, noteContent,
+                        noteContent.length(), noteContent.substring(0, 200)});
+                int tag = random.nextInt(TAGS / NOTE_TAGS) * NOTE_TAGS + 1;
+                for (int i = 0; i < NOTE_TAGS; i++) {
+                    linkRows.add(new Object[]{id, tag + i});
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO notes (id, version, created, modified, content, content_length, preview) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)", noteRows);
+            jdbcTemplate.batchUpdate("INSERT INTO note_tag (note_id, tag_id) VALUES (?, ?)", linkRows);
+        }
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM note_tag");
+        jdbcTemplate.update("DELETE FROM notes");
+        jdbcTemplate.update("DELETE FROM tags");
+        jdbcTemplate.update("DELETE FROM note_tombstones");
+    }
+
+    @Benchmark
+    public SnapshotStatistics export() throws Exception {
+        return snapshot.export(path);
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyDatabase {
+
+        @Setup(Level.Invocation)
+        public void setUp(SnapshotBenchmark benchmark) {
+            benchmark.clear();
+        }
+    }
+
+    @Benchmark
+    public SnapshotStatistics load(EmptyDatabase database) throws Exception {
+        return snapshot.load(path);
+    }
+
+}
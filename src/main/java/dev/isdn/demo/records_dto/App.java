@@ -2,15 +2,19 @@ package dev.isdn.demo.records_dto;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-@EnableAutoConfiguration
+// the R2DBC backend must not replace the JDBC data source, see ReactiveDatabase
+@EnableAutoConfiguration(exclude = R2dbcAutoConfiguration.class)
 @Configuration
 @ComponentScan
 @EnableTransactionManagement
+@EnableScheduling
 public class App {
 
     public static void main(String[] args) {
@@ -0,0 +1,32 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.controller.exceptions.ResultErrorException;
+import dev.isdn.demo.records_dto.app.domain.common.DatabaseSnapshot;
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
+import dev.isdn.demo.records_dto.app.domain.common.SnapshotStatistics;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+public class AdminController {
+
+    private final static String PREFIX = "/";
+    private final static String VERSION = "v1";
+    private final DatabaseSnapshot databaseSnapshot;
+    private final ServiceExecutor serviceExecutor;
+
+    public AdminController(DatabaseSnapshot databaseSnapshot, ServiceExecutor serviceExecutor) {
+        this.databaseSnapshot = databaseSnapshot;
+        this.serviceExecutor = serviceExecutor;
+    }
+
+    /**
+     * Writes the snapshot of {@code snapshot.path}, which is loaded at the next start with an empty database.
+     */
+    @PostMapping(PREFIX + VERSION + "/admin/snapshot")
+    Mono<SnapshotStatistics> exportSnapshot() {
+        return serviceExecutor.call(() -> databaseSnapshot.export().orElseThrow(ResultErrorException::new));
+    }
+
+}
@@ -0,0 +1,62 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+
+/**
+ * Changes of notes and tags as server-sent events or as newline-delimited JSON, served by both backends.
+ * The ID of an event is the sequence of its change: a client resumes with {@code Last-Event-ID} or {@code after},
+ * otherwise it gets the changes published from now on.
+ */
+@RestController
+public class ChangeController {
+
+    private final static String PREFIX = "/";
+    private final static String VERSION = "v1";
+    private final ChangeFeed changeFeed;
+    private final Duration heartbeat;
+
+    public ChangeController(ChangeFeed changeFeed, @Value("${changes.heartbeat:15s}") Duration heartbeat) {
+        this.changeFeed = changeFeed;
+        this.heartbeat = heartbeat;
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Change>> streamChangeEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                     @RequestParam(required = false) String after) {
+        Flux<ServerSentEvent<Change>> events = changes(lastEventId != null ? lastEventId : after)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(Long.toString(change.sequence()))
+                        .event(change.type().name())
+                        .build());
+        // idle connections are kept open by proxies and closed connections are noticed
+        return events.mergeWith(Flux.interval(heartbeat).map(tick -> ServerSentEvent.<Change>builder().comment("").build()));
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<Change> streamChanges(@RequestParam(required = false) String after) {
+        return changes(after);
+    }
+
+    private Flux<Change> changes(String after) {
+        if (after == null) {
+            return changeFeed.changes();
+        }
+        try {
+            return changeFeed.changes(Long.parseLong(after.trim()));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("after");
+        }
+    }
+
+}
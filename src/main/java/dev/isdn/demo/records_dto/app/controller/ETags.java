@@ -0,0 +1,47 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.domain.common.CollectionVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Entity tags built from the entity versions, so a conditional GET can be answered
+ * with {@code 304 Not Modified} without reading or serializing the entity.
+ * Every write gets a new version (see {@code EntityVersionType}), so the tags are strong validators.
+ * {@code If-None-Match} is compared the weak way, as required for GET, and may list several tags or {@code *}.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(CollectionVersion version) {
+        return "\"" + version.count() + "-" + version.version() + "\"";
+    }
+
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    static <T> ResponseEntity<T> ok(String eTag, T body) {
+        return ResponseEntity.ok().eTag(eTag).body(body);
+    }
+
+}
@@ -1,83 +1,275 @@
 package dev.isdn.demo.records_dto.app.controller;
 
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NoSuchItemException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NotCreatedException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NotUpdatedException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.ResultErrorException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.WatermarkExpiredException;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.Functions;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
 import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
 import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteImport;
 import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSummary;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSyncPage;
+import dev.isdn.demo.records_dto.app.domain.note.NoteWithTags;
+import dev.isdn.demo.records_dto.app.domain.note.TagExpression;
 import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
 import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
+@Profile("!r2dbc")
 public class NoteController {
 
     private final static String PREFIX = "/";
     private final static String VERSION = "v1";
     private final NoteService noteService;
     private final TagService tagService;
+    private final ServiceExecutor serviceExecutor;
+    private final int importBatchSize;
 
-    public NoteController(NoteService noteService, TagService tagService) {
+    public NoteController(NoteService noteService, TagService tagService, ServiceExecutor serviceExecutor,
+                          @Value("${notes.import.batch-size:500}") int importBatchSize) {
         this.noteService = noteService;
         this.tagService = tagService;
+        this.serviceExecutor = serviceExecutor;
+        this.importBatchSize = Math.max(1, importBatchSize);
     }
 
     @GetMapping(PREFIX + VERSION + "/notes")
-    List<NoteDto> getAllNotes() {
-        return noteService.getAllNotes();
+    Mono<List<NoteDto>> getAllNotes() {
+        return serviceExecutor.call(noteService::getAllNotes);
     }
 
+    @GetMapping(value = PREFIX + VERSION + "/notes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<NoteDto> streamAllNotes() {
+        return noteService.streamAllNotes();
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"limit", "!modifiedSince"})
+    Mono<CursorPage<NoteDto>> getNotesPage(@RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.getNotesPage(after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    /**
+     * Notes modified since the watermark (epoch seconds, 0 for the first sync), page by page.
+     * The last page has the IDs of the deleted notes and the watermark of the next sync.
+     */
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"modifiedSince", "!include", "!view"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<NoteSyncPage> getNotesModifiedSince(@RequestParam long modifiedSince,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.getNotesModifiedSince(modifiedSince, after, Functions.checkPageLimit.apply(limit))
+                    .orElseThrow(() -> new WatermarkExpiredException(modifiedSince));
+        });
+    }
+
+    /**
+     * The watermark is supported by the JSON sync of full notes only, the other variants of the list would ignore it.
+     * They exclude {@code modifiedSince}, so their requests with a watermark end up here.
+     */
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = "modifiedSince")
+    Mono<NoteSyncPage> getNotesModifiedSinceUnsupported() {
+        return Mono.error(new InvalidRequestException("modifiedSince is not supported with include, view or NDJSON"));
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"include=tags", "!view", "!modifiedSince"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<List<NoteWithTags>> getAllNotesWithTags() {
+        return serviceExecutor.call(noteService::getAllNotesWithTags);
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"include=tags", "!view", "limit", "!modifiedSince"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<CursorPage<NoteWithTags>> getNotesWithTagsPage(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.getNotesWithTagsPage(after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"view=summary", "!modifiedSince"})
+    Mono<List<NoteSummary>> getAllNoteSummaries() {
+        return serviceExecutor.call(noteService::getAllNoteSummaries);
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"view=summary", "!modifiedSince"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<NoteSummary> streamAllNoteSummaries() {
+        return noteService.streamAllNoteSummaries();
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"view=summary", "limit", "!modifiedSince"})
+    Mono<CursorPage<NoteSummary>> getNoteSummariesPage(@RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.getNoteSummariesPage(after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    @GetMapping(PREFIX + VERSION + "/notes/search")
+    Mono<List<NoteDto>> searchNotes(@RequestParam(required = false) String q,
+                                    @RequestParam(required = false) Integer limit) {
+        return serviceExecutor.call(() -> noteService.searchNotes(checkQuery(q), Functions.checkPageLimit.apply(limit)));
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes/search", params = "view=summary")
+    Mono<List<NoteSummary>> searchNoteSummaries(@RequestParam(required = false) String q,
+                                                @RequestParam(required = false) Integer limit) {
+        return serviceExecutor.call(() -> noteService.searchNoteSummaries(checkQuery(q), Functions.checkPageLimit.apply(limit)));
+    }
+
+    @GetMapping(PREFIX + VERSION + "/notes/query")
+    Mono<CursorPage<Long>> queryNoteIds(@RequestParam(required = false) String tags,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.queryNoteIds(checkTagExpression(tags), after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes/query", params = "view=summary")
+    Mono<CursorPage<NoteSummary>> queryNoteSummaries(@RequestParam(required = false) String tags,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return noteService.queryNoteSummaries(checkTagExpression(tags), after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    /**
+     * A matching {@code If-None-Match} is answered from the version of the note, its content is not read.
+     */
     @GetMapping(PREFIX + VERSION + "/notes/{id}")
-    NoteDto getNote(@PathVariable long id) {
-        return noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
+    Mono<ResponseEntity<NoteDto>> getNote(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serviceExecutor.call(() -> {
+            if (ifNoneMatch != null) {
+                String eTag = ETags.of(noteService.getNoteVersion(id).orElseThrow(() -> new NoSuchItemException("note " + id)));
+                if (ETags.matches(ifNoneMatch, eTag)) {
+                    return ETags.notModified(eTag);
+                }
+            }
+            NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
+            return ETags.ok(ETags.of(note.version()), note);
+        });
     }
 
     @GetMapping(PREFIX + VERSION + "/notes/{id}/tags")
-    List<TagDto> getNoteTags(@PathVariable long id) {
-        NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
-        return tagService.getNoteTags(note);
+    Mono<List<TagDto>> getNoteTags(@PathVariable long id) {
+        return serviceExecutor.call(() -> {
+            NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
+            return tagService.getNoteTags(note);
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes/{id}/tags", params = "limit")
+    Mono<CursorPage<TagDto>> getNoteTagsPage(@PathVariable long id,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
+            return tagService.getNoteTagsPage(note, after, Functions.checkPageLimit.apply(limit));
+        });
     }
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(value = PREFIX + VERSION + "/notes")
-    NoteDto createNote(@RequestBody NoteContent content) {
-        return noteService.createNote(content).orElseThrow(NotCreatedException::new);
+    Mono<NoteDto> createNote(@RequestBody NoteContent content) {
+        return serviceExecutor.call(() -> noteService.createNote(content).orElseThrow(NotCreatedException::new));
+    }
+
+    /**
+     * Imports notes from a newline-delimited JSON body of any size.
+     * The body is decoded as it arrives and every batch is stored in its own transaction,
+     * the next batch is read only after the previous one is stored.
+     */
+    @PostMapping(value = PREFIX + VERSION + "/notes/import",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<NoteImport> importNotes(@RequestBody Flux<NoteContent> contents) {
+        AtomicLong processed = new AtomicLong();
+        AtomicLong created = new AtomicLong();
+        return contents.buffer(importBatchSize)
+                .concatMap(batch -> serviceExecutor.call(() -> noteService.createNotes(batch))
+                        .map(ids -> new NoteImport(processed.addAndGet(batch.size()), created.addAndGet(ids.size()), ids)),
+                        1);
     }
 
     @PutMapping(PREFIX + VERSION + "/notes/{id}")
-    NoteDto updateNoteContent(@PathVariable long id, @RequestBody NoteContent content) {
-        NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
-        return noteService.updateNoteContent(note, content).orElseThrow(() -> new NotUpdatedException("note " + id));
+    Mono<NoteDto> updateNoteContent(@PathVariable long id, @RequestBody NoteContent content) {
+        return serviceExecutor.call(() -> noteResult(id, noteService.updateNoteContentById(id, content)));
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping(PREFIX + VERSION + "/notes/{id}")
-    void deleteNote(@PathVariable long id) {
-        Result result = noteService.deleteNoteById(id);
-        switch (result) {
-            case Result.Ok ignored -> {}
-            case Result.Error res -> throw new ResultErrorException();
-            case Result.NoSuchElement res -> throw new NoSuchItemException("note " + res.element());
-        }
+    Mono<Void> deleteNote(@PathVariable long id) {
+        return serviceExecutor.run(() -> {
+            Result result = noteService.deleteNoteById(id);
+            switch (result) {
+                case Result.Ok ignored -> {}
+                case Result.Done ignored -> {}
+                case Result.Error res -> throw new ResultErrorException();
+                case Result.NoSuchElement res -> throw new NoSuchItemException(res.type() + " " + res.element());
+            }
+        });
     }
 
     @PutMapping(PREFIX + VERSION + "/notes/{id}/tags/{tagId}")
-    NoteDto addTagToNote(@PathVariable long id, @PathVariable long tagId) {
-        NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
-        TagDto tag = tagService.getTagById(tagId).orElseThrow(() -> new NoSuchItemException("tag " + tagId));
-        return noteService.addTagToNote(note, tag).orElseThrow(() -> new NotUpdatedException("note " + id));
+    Mono<NoteDto> addTagToNote(@PathVariable long id, @PathVariable long tagId) {
+        return serviceExecutor.call(() -> noteResult(id, noteService.addTagToNoteById(id, tagId)));
     }
 
     @DeleteMapping(PREFIX + VERSION + "/notes/{id}/tags/{tagId}")
-    NoteDto deleteTagFromNote(@PathVariable long id, @PathVariable long tagId) {
-        NoteDto note = noteService.getNoteById(id).orElseThrow(() -> new NoSuchItemException("note " + id));
-        TagDto tag = tagService.getTagById(tagId).orElseThrow(() -> new NoSuchItemException("tag " + tagId));
-        return noteService.deleteTagFromNote(note, tag).orElseThrow(() -> new NotUpdatedException("note " + id));
+    Mono<NoteDto> deleteTagFromNote(@PathVariable long id, @PathVariable long tagId) {
+        return serviceExecutor.call(() -> noteResult(id, noteService.deleteTagFromNoteById(id, tagId)));
+    }
+
+    private static String checkQuery(String query) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("q");
+        }
+        return query;
+    }
+
+    private static TagExpression checkTagExpression(String tags) {
+        return TagExpression.parse(tags).orElseThrow(() -> new InvalidRequestException("tags"));
+    }
+
+    static NoteDto noteResult(long id, Result result) {
+        return switch (result) {
+            case Result.Done res -> (NoteDto) res.element();
+            case Result.NoSuchElement res -> throw new NoSuchItemException(res.type() + " " + res.element());
+            case Result.Ok res -> throw new NotUpdatedException("note " + id);
+            case Result.Error res -> throw new NotUpdatedException("note " + id);
+        };
     }
 
 }
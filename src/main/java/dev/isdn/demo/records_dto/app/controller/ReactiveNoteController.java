@@ -0,0 +1,124 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.NoSuchItemException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.NotCreatedException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.ResultErrorException;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Core note endpoints of {@link NoteController} served by the R2DBC backend, no call blocks a thread.
+ * Lists are returned as JSON arrays or as newline-delimited JSON, depending on the {@code Accept} header.
+ */
+@RestController
+@Profile("r2dbc")
+public class ReactiveNoteController {
+
+    private final static String PREFIX = "/";
+    private final static String VERSION = "v1";
+    private final ReactiveNoteService noteService;
+    private final ReactiveTagService tagService;
+
+    public ReactiveNoteController(ReactiveNoteService noteService, ReactiveTagService tagService) {
+        this.noteService = noteService;
+        this.tagService = tagService;
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/notes", params = {"!limit", "!cursor", "!view", "!include", "!modifiedSince"})
+    Flux<NoteDto> getAllNotes() {
+        return noteService.getAllNotes();
+    }
+
+    /**
+     * Pages, views, embedded tags and the sync of {@link NoteController} are not available here,
+     * so their parameters are rejected rather than answered with the whole list.
+     */
+    @GetMapping(PREFIX + VERSION + "/notes")
+    Flux<NoteDto> getNotesUnsupported(@RequestParam MultiValueMap<String, String> params) {
+        return Flux.error(new InvalidRequestException(unsupported(params, "limit", "cursor", "view", "include", "modifiedSince")));
+    }
+
+    static String unsupported(MultiValueMap<String, String> params, String... names) {
+        return Arrays.stream(names)
+                .filter(params::containsKey)
+                .collect(Collectors.joining(", ", "", " not supported"));
+    }
+
+    /**
+     * @see NoteController#getNote(long, String)
+     */
+    @GetMapping(PREFIX + VERSION + "/notes/{id}")
+    Mono<ResponseEntity<NoteDto>> getNote(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<NoteDto>> note = noteService.getNoteById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchItemException("note " + id)))
+                .map(n -> ETags.ok(ETags.of(n.version()), n));
+        if (ifNoneMatch == null) {
+            return note;
+        }
+        return noteService.getNoteVersion(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchItemException("note " + id)))
+                .map(ETags::of)
+                .flatMap(eTag -> ETags.matches(ifNoneMatch, eTag) ? Mono.just(ETags.<NoteDto>notModified(eTag)) : note);
+    }
+
+    @GetMapping(PREFIX + VERSION + "/notes/{id}/tags")
+    Flux<TagDto> getNoteTags(@PathVariable long id) {
+        return noteService.getNoteById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchItemException("note " + id)))
+                .flatMapMany(tagService::getNoteTags);
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(value = PREFIX + VERSION + "/notes")
+    Mono<NoteDto> createNote(@RequestBody NoteContent content) {
+        return noteService.createNote(content)
+                .switchIfEmpty(Mono.error(NotCreatedException::new));
+    }
+
+    @PutMapping(PREFIX + VERSION + "/notes/{id}")
+    Mono<NoteDto> updateNoteContent(@PathVariable long id, @RequestBody NoteContent content) {
+        return noteService.updateNoteContentById(id, content)
+                .map(result -> NoteController.noteResult(id, result));
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping(PREFIX + VERSION + "/notes/{id}")
+    Mono<Void> deleteNote(@PathVariable long id) {
+        return noteService.deleteNoteById(id)
+                .flatMap(result -> switch (result) {
+                    case Result.Ok ignored -> Mono.empty();
+                    case Result.Done ignored -> Mono.empty();
+                    case Result.Error res -> Mono.error(new ResultErrorException());
+                    case Result.NoSuchElement res -> Mono.error(new NoSuchItemException(res.type() + " " + res.element()));
+                });
+    }
+
+    @PutMapping(PREFIX + VERSION + "/notes/{id}/tags/{tagId}")
+    Mono<NoteDto> addTagToNote(@PathVariable long id, @PathVariable long tagId) {
+        return noteService.addTagToNoteById(id, tagId)
+                .map(result -> NoteController.noteResult(id, result));
+    }
+
+    @DeleteMapping(PREFIX + VERSION + "/notes/{id}/tags/{tagId}")
+    Mono<NoteDto> deleteTagFromNote(@PathVariable long id, @PathVariable long tagId) {
+        return noteService.deleteTagFromNoteById(id, tagId)
+                .map(result -> NoteController.noteResult(id, result));
+    }
+
+}
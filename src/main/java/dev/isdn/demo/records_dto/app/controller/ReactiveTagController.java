@@ -0,0 +1,103 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.NoSuchItemException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.NotCreatedException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.NotUpdatedException;
+import dev.isdn.demo.records_dto.app.controller.exceptions.ResultErrorException;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagContent;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Core tag endpoints of {@link TagController} served by the R2DBC backend, no call blocks a thread.
+ * Lists are returned as JSON arrays or as newline-delimited JSON, depending on the {@code Accept} header.
+ */
+@RestController
+@Profile("r2dbc")
+public class ReactiveTagController {
+
+    private final static String PREFIX = "/";
+    private final static String VERSION = "v1";
+    private final ReactiveNoteService noteService;
+    private final ReactiveTagService tagService;
+
+    public ReactiveTagController(ReactiveNoteService noteService, ReactiveTagService tagService) {
+        this.noteService = noteService;
+        this.tagService = tagService;
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags", params = {"!limit", "!cursor"})
+    Flux<TagDto> getAllTags() {
+        return tagService.getAllTags();
+    }
+
+    /**
+     * Pages of {@link TagController} are not available here, so their parameters are rejected
+     * rather than answered with the whole list.
+     */
+    @GetMapping(PREFIX + VERSION + "/tags")
+    Flux<TagDto> getTagsUnsupported(@RequestParam MultiValueMap<String, String> params) {
+        return Flux.error(new InvalidRequestException(ReactiveNoteController.unsupported(params, "limit", "cursor")));
+    }
+
+    @GetMapping(PREFIX + VERSION + "/tags/{id}")
+    Mono<ResponseEntity<TagDto>> getTag(@PathVariable long id,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return tagService.getTagById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchItemException("tag " + id)))
+                .map(tag -> {
+                    String eTag = ETags.of(tag.version());
+                    return ETags.matches(ifNoneMatch, eTag) ? ETags.notModified(eTag) : ETags.ok(eTag, tag);
+                });
+    }
+
+    @GetMapping(PREFIX + VERSION + "/tags/{id}/notes")
+    Flux<NoteDto> getTagNotes(@PathVariable long id) {
+        return tagService.getTagById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchItemException("tag " + id)))
+                .flatMapMany(noteService::getTagNotes);
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(PREFIX + VERSION + "/tags")
+    Mono<TagDto> createTag(@RequestBody TagContent content) {
+        return tagService.createTag(content)
+                .switchIfEmpty(Mono.error(NotCreatedException::new));
+    }
+
+    @PutMapping(PREFIX + VERSION + "/tags/{id}")
+    Mono<TagDto> updateTagContent(@PathVariable long id, @RequestBody TagContent content) {
+        return tagService.updateTagContentById(id, content)
+                .map(result -> switch (result) {
+                    case Result.Done res -> (TagDto) res.element();
+                    case Result.NoSuchElement res -> throw new NoSuchItemException(res.type() + " " + res.element());
+                    case Result.Ok res -> throw new NotUpdatedException("tag " + id);
+                    case Result.Error res -> throw new NotUpdatedException("tag " + id);
+                });
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping(PREFIX + VERSION + "/tags/{id}")
+    Mono<Void> deleteTag(@PathVariable long id) {
+        return tagService.deleteTagById(id)
+                .flatMap(result -> switch (result) {
+                    case Result.Ok ignored -> Mono.empty();
+                    case Result.Done ignored -> Mono.empty();
+                    case Result.Error res -> Mono.error(new ResultErrorException());
+                    case Result.NoSuchElement res -> Mono.error(new NoSuchItemException(res.type() + " " + res.element()));
+                });
+    }
+
+}
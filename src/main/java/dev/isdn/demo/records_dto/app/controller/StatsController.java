@@ -0,0 +1,33 @@
+package dev.isdn.demo.records_dto.app.controller;
+
+import dev.isdn.demo.records_dto.app.domain.common.CacheStatistics;
+import dev.isdn.demo.records_dto.app.domain.common.ExecutorStatistics;
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class StatsController {
+
+    private final static String PREFIX = "/";
+    private final static String VERSION = "v1";
+    private final TagService tagService;
+    private final ServiceExecutor serviceExecutor;
+
+    public StatsController(TagService tagService, ServiceExecutor serviceExecutor) {
+        this.tagService = tagService;
+        this.serviceExecutor = serviceExecutor;
+    }
+
+    @GetMapping(PREFIX + VERSION + "/stats/tags/cache")
+    CacheStatistics getTagCacheStatistics() {
+        return tagService.getCacheStatistics();
+    }
+
+    @GetMapping(PREFIX + VERSION + "/stats/executor")
+    ExecutorStatistics getExecutorStatistics() {
+        return serviceExecutor.statistics();
+    }
+
+}
@@ -1,69 +1,164 @@
 package dev.isdn.demo.records_dto.app.controller;
 
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NoSuchItemException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NotCreatedException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.NotUpdatedException;
 import dev.isdn.demo.records_dto.app.controller.exceptions.ResultErrorException;
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.Functions;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
 import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
 import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSummary;
 import dev.isdn.demo.records_dto.app.domain.tag.TagContent;
 import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
 import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import java.util.List;
 
 @RestController
+@Profile("!r2dbc")
 public class TagController {
 
     private final static String PREFIX = "/";
     private final static String VERSION = "v1";
     private final NoteService noteService;
     private final TagService tagService;
+    private final ServiceExecutor serviceExecutor;
 
-    public TagController(NoteService noteService, TagService tagService) {
+    public TagController(NoteService noteService, TagService tagService, ServiceExecutor serviceExecutor) {
         this.noteService = noteService;
         this.tagService = tagService;
+        this.serviceExecutor = serviceExecutor;
     }
 
+    /**
+     * The entity tag of the list is built from the number of tags and their latest version, which is read first:
+     * a tag changed in between makes the entity tag older than the list, never newer.
+     */
     @GetMapping(PREFIX + VERSION + "/tags")
-    List<TagDto> getAllTags() {
-        return tagService.getAllTags();
+    Mono<ResponseEntity<List<TagDto>>> getAllTags(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serviceExecutor.call(() -> {
+            String eTag = ETags.of(tagService.getTagsVersion());
+            return ETags.matches(ifNoneMatch, eTag) ? ETags.notModified(eTag) : ETags.ok(eTag, tagService.getAllTags());
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<TagDto> streamAllTags() {
+        return tagService.streamAllTags();
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags", params = "limit")
+    Mono<CursorPage<TagDto>> getTagsPage(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            return tagService.getTagsPage(after, Functions.checkPageLimit.apply(limit));
+        });
     }
 
     @GetMapping(PREFIX + VERSION + "/tags/{id}")
-    TagDto getTag(@PathVariable long id) {
-        return tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+    Mono<ResponseEntity<TagDto>> getTag(@PathVariable long id,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return serviceExecutor.call(() -> {
+            TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+            String eTag = ETags.of(tag.version());
+            return ETags.matches(ifNoneMatch, eTag) ? ETags.notModified(eTag) : ETags.ok(eTag, tag);
+        });
     }
 
     @GetMapping(PREFIX + VERSION + "/tags/{id}/notes")
-    List<NoteDto> getTagNotes(@PathVariable long id) {
-        TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
-        return noteService.getTagNotes(tag);
+    Mono<List<NoteDto>> getTagNotes(@PathVariable long id) {
+        return serviceExecutor.call(() -> {
+            TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+            return noteService.getTagNotes(tag);
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags/{id}/notes", params = "limit")
+    Mono<CursorPage<NoteDto>> getTagNotesPage(@PathVariable long id,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+            return noteService.getTagNotesPage(tag, after, Functions.checkPageLimit.apply(limit));
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags/{id}/notes", params = "view=summary")
+    Mono<List<NoteSummary>> getTagNoteSummaries(@PathVariable long id) {
+        return serviceExecutor.call(() -> {
+            TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+            return noteService.getTagNoteSummaries(tag);
+        });
+    }
+
+    @GetMapping(value = PREFIX + VERSION + "/tags/{id}/notes", params = {"view=summary", "limit"})
+    Mono<CursorPage<NoteSummary>> getTagNoteSummariesPage(@PathVariable long id,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          @RequestParam(required = false) String cursor) {
+        return serviceExecutor.call(() -> {
+            Cursor after = Cursor.decode.apply(cursor).orElseThrow(() -> new InvalidRequestException("cursor"));
+            TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
+            return noteService.getTagNoteSummariesPage(tag, after, Functions.checkPageLimit.apply(limit));
+        });
     }
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(PREFIX + VERSION + "/tags")
-    TagDto createTag(@RequestBody TagContent content) {
-        return tagService.createTag(content).orElseThrow(NotCreatedException::new);
+    Mono<TagDto> createTag(@RequestBody TagContent content) {
+        return serviceExecutor.call(() -> tagService.createTag(content).orElseThrow(NotCreatedException::new));
+    }
+
+    @PostMapping(PREFIX + VERSION + "/tags/batch")
+    Mono<List<Result>> createTags(@RequestBody List<TagContent> contents) {
+        return serviceExecutor.call(() -> {
+            if (contents.size() > Constants.BATCH_LIMIT) {
+                throw new InvalidRequestException("batch size is limited to " + Constants.BATCH_LIMIT);
+            }
+            return tagService.createTags(contents);
+        });
     }
 
     @PutMapping(PREFIX + VERSION + "/tags/{id}")
-    TagDto updateTagContent(@PathVariable long id, @RequestBody TagContent content) {
-        TagDto tag = tagService.getTagById(id).orElseThrow(() -> new NoSuchItemException("tag " + id));
-        return tagService.updateTagContent(tag, content).orElseThrow(() -> new NotUpdatedException("tag " + id));
+    Mono<TagDto> updateTagContent(@PathVariable long id, @RequestBody TagContent content) {
+        return serviceExecutor.call(() -> {
+            Result result = tagService.updateTagContentById(id, content);
+            return switch (result) {
+                case Result.Done res -> (TagDto) res.element();
+                case Result.NoSuchElement res -> throw new NoSuchItemException(res.type() + " " + res.element());
+                case Result.Ok res -> throw new NotUpdatedException("tag " + id);
+                case Result.Error res -> throw new NotUpdatedException("tag " + id);
+            };
+        });
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping(PREFIX + VERSION + "/tags/{id}")
-    void deleteTag(@PathVariable long id) {
-        Result result = tagService.deleteTagById(id);
-        switch (result) {
-            case Result.Ok ignored -> {}
-            case Result.Error res -> throw new ResultErrorException();
-            case Result.NoSuchElement res -> throw new NoSuchItemException("tag " + res.element());
-        }
+    Mono<Void> deleteTag(@PathVariable long id) {
+        return serviceExecutor.run(() -> {
+            Result result = tagService.deleteTagById(id);
+            switch (result) {
+                case Result.Ok ignored -> {}
+                case Result.Done ignored -> {}
+                case Result.Error res -> throw new ResultErrorException();
+                case Result.NoSuchElement res -> throw new NoSuchItemException(res.type() + " " + res.element());
+            }
+        });
     }
 
 }
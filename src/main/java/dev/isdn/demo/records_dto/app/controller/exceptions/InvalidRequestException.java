@@ -0,0 +1,8 @@
+package dev.isdn.demo.records_dto.app.controller.exceptions;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String msg) {
+        super("Invalid request parameter: " + msg);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.isdn.demo.records_dto.app.controller.exceptions;
+
+public class WatermarkExpiredException extends RuntimeException {
+
+    public WatermarkExpiredException(long watermark) {
+        super("Watermark expired: " + watermark + ", sync from 0");
+    }
+}
@@ -0,0 +1,19 @@
+package dev.isdn.demo.records_dto.app.controller.handlers;
+
+import dev.isdn.demo.records_dto.app.controller.exceptions.InvalidRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ControllerAdvice
+public class InvalidRequestExceptionAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String invalidRequestExceptionHandler(InvalidRequestException e) {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,20 @@
+package dev.isdn.demo.records_dto.app.controller.handlers;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ControllerAdvice
+public class OptimisticLockingFailureExceptionAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    String optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException e) {
+        return "Item was changed concurrently, try again";
+    }
+
+}
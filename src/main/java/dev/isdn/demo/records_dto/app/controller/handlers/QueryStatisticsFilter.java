@@ -0,0 +1,52 @@
+package dev.isdn.demo.records_dto.app.controller.handlers;
+
+import dev.isdn.demo.records_dto.app.domain.common.QueryCounter;
+import dev.isdn.demo.records_dto.app.domain.common.QueryStatistics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import java.util.Locale;
+
+/**
+ * Counts the JDBC statements of every request, the service calls find the {@link QueryCounter} in the subscriber
+ * context. The statistics are returned in the {@code X-Query-Count}, {@code X-Query-Time} and {@code X-Query-Slowest}
+ * headers (times in milliseconds) and recorded per URI pattern ({@code requests.queries}).
+ * Rows streamed after the headers are sent are not counted.
+ */
+@Component
+public class QueryStatisticsFilter implements WebFilter {
+
+    private final MeterRegistry registry;
+
+    public QueryStatisticsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        QueryCounter queries = QueryCounter.create();
+        exchange.getResponse().beforeCommit(() -> {
+            QueryStatistics statistics = queries.statistics();
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            headers.set("X-Query-Count", Integer.toString(statistics.count()));
+            headers.set("X-Query-Time", String.format(Locale.ROOT, "%.3f", statistics.timeMs()));
+            headers.set("X-Query-Slowest", String.format(Locale.ROOT, "%.3f", statistics.slowestMs()));
+            Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("requests.queries")
+                    .description("JDBC statements per request")
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .register(registry)
+                    .record(statistics.count());
+            return Mono.empty();
+        });
+        return chain.filter(exchange).contextWrite(Context.of(QueryCounter.class, queries));
+    }
+
+}
@@ -0,0 +1,20 @@
+package dev.isdn.demo.records_dto.app.controller.handlers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import java.util.concurrent.RejectedExecutionException;
+
+@ControllerAdvice
+public class RejectedExecutionExceptionAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    String rejectedExecutionExceptionHandler(RejectedExecutionException e) {
+        return "Service is busy, try again later";
+    }
+
+}
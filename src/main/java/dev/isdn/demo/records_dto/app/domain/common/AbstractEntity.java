@@ -1,8 +1,9 @@
 package dev.isdn.demo.records_dto.app.domain.common;
 
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Type;
 import javax.persistence.*;
-import java.sql.Timestamp;
 import java.util.Objects;
 
 @MappedSuperclass
@@ -10,16 +11,29 @@ public abstract class AbstractEntity {
     @Id
     @Column(nullable = false)
     @GeneratedValue(generator = "id-generator")
-    @GenericGenerator(name = "id-generator", strategy = "dev.isdn.demo.records_dto.app.domain.common.SequenceGenerator")
+    @GenericGenerator(
+            name = "id-generator",
+            strategy = "dev.isdn.demo.records_dto.app.domain.common.BlockSequenceGenerator",
+            parameters = @Parameter(name = BlockSequenceGenerator.BLOCK_SIZE, value = "128")
+    )
     private long id;
 
     @Version
-    private Timestamp version;
+    @Type(type = "dev.isdn.demo.records_dto.app.domain.common.EntityVersionType")
+    private Long version;
 
     public long getId() {
         return id;
     }
 
+    /**
+     * @return the version, null until the entity is flushed, which is how Spring Data tells new entities
+     * @see EntityVersionType
+     */
+    public Long getVersion() {
+        return version;
+    }
+
     @Override
     public int hashCode() {
         return id > 0 ? Objects.hashCode(id) : super.hashCode();
@@ -0,0 +1,85 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.hibernate.MappingException;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Properties;
+
+/**
+ * Lock-free variant of {@link SequenceGenerator}.
+ * Every thread owns its own {@link SecureRandom} and pre-fetches random numbers in blocks,
+ * so concurrent inserts never share a monitor and the random source is touched once per block.
+ * The block size can be set with the {@value #BLOCK_SIZE} parameter of {@code @GenericGenerator}.
+ */
+public class BlockSequenceGenerator extends SequenceGenerator {
+
+    public static final String BLOCK_SIZE = "block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 128;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(() -> new Block(blockSize));
+
+    public BlockSequenceGenerator() {}
+
+    public BlockSequenceGenerator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void configure(Type type, Properties properties, ServiceRegistry serviceRegistry) throws MappingException {
+        int size = ConfigurationHelper.getInt(BLOCK_SIZE, properties, DEFAULT_BLOCK_SIZE);
+        if (size < 1) {
+            throw new MappingException("Parameter " + BLOCK_SIZE + " must be positive: " + size);
+        }
+        this.blockSize = size;
+    }
+
+    @Override
+    public long getNumber() {
+        return blocks.get().next();
+    }
+
+    private static final class Block {
+
+        private final SecureRandom random = newRandom();
+        private final ByteBuffer buffer;
+
+        private Block(int size) {
+            this.buffer = ByteBuffer.allocate(size * Long.BYTES);
+            this.buffer.position(this.buffer.limit());
+        }
+
+        private long next() {
+            long result;
+            do {
+                if (!buffer.hasRemaining()) {
+                    random.nextBytes(buffer.array());
+                    buffer.clear();
+                }
+                result = buffer.getLong() >>> 1;
+            } while (result == 0L);
+            return result;
+        }
+
+        /*
+         * DRBG keeps its state per instance, while the platform default (NativePRNG)
+         * reads from a process-wide source guarded by a global lock.
+         */
+        private static SecureRandom newRandom() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record CacheStatistics(
+        @JsonProperty("size") long size,
+        @JsonProperty("hits") long hits,
+        @JsonProperty("misses") long misses,
+        @JsonProperty("evictions") long evictions,
+        @JsonProperty("hitRate") double hitRate
+) {
+    @JsonCreator
+    public CacheStatistics(long size, long hits, long misses, long evictions, double hitRate) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.hitRate = hitRate;
+    }
+}
@@ -0,0 +1,29 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A committed change of a note, of a tag or of the link between them, numbered by {@link ChangeFeed}.
+ * {@code version} is the entity version after the change: the version of the note for link changes,
+ * a version newer than the last one of the entity for deletes.
+ * {@code tagId} is set for link changes only, {@code id} is the note ID then.
+ */
+public record Change(
+        @JsonProperty("seq") long sequence,
+        @JsonProperty("type") Type type,
+        @JsonProperty("id") long id,
+        @JsonProperty("version") long version,
+        @JsonProperty("tagId") @JsonInclude(JsonInclude.Include.NON_NULL) Long tagId
+) {
+    public enum Type {
+        NOTE_CREATED, NOTE_UPDATED, NOTE_DELETED,
+        TAG_CREATED, TAG_UPDATED, TAG_DELETED,
+        TAG_ATTACHED, TAG_DETACHED,
+        /**
+         * Changes were missed: the subscriber fell behind the buffer or resumed from a sequence which is not kept.
+         * The lists have to be read again, the feed continues after the sequence of this event.
+         */
+        RESET
+    }
+}
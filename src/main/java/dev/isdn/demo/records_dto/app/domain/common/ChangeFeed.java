@@ -0,0 +1,129 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * The last changes of notes and tags in a ring buffer ({@code changes.buffer-size}), published by the services
+ * after their transactions commit. Every change gets the next sequence, sequences start from the startup time
+ * in microseconds, so a sequence of a previous run is never taken for a sequence of this one.
+ * A subscriber keeps its own position in the buffer and reads the changes as it requests them, a publication
+ * only wakes the subscribers up. So a slow subscriber costs no memory and does not hold back the others,
+ * a subscriber overtaken by the buffer gets a {@link Change.Type#RESET} and continues from the latest change.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final AtomicReferenceArray<Change> ring;
+    private final int mask;
+    private final long first;
+    private volatile long last;
+    private final Sinks.Many<Long> published = Sinks.many().multicast().directBestEffort();
+
+    public ChangeFeed(@Value("${changes.buffer-size:65536}") int bufferSize, MeterRegistry registry) {
+        int capacity = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(bufferSize, 2) - 1));
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.first = System.currentTimeMillis() * 1000;
+        this.last = first;
+        Gauge.builder("changes.subscribers", published, Sinks.Many::currentSubscriberCount)
+                .description("Subscribers of the change feed")
+                .register(registry);
+    }
+
+    public void publishAfterCommit(Change.Type type, long id, long version) {
+        Transactions.afterCommit(() -> publish(type, id, version, null));
+    }
+
+    public void publishAfterCommit(Change.Type type, long noteId, long tagId, long version) {
+        Transactions.afterCommit(() -> publish(type, noteId, version, tagId));
+    }
+
+    /**
+     * @return sequence of the latest change
+     */
+    public long lastSequence() {
+        return last;
+    }
+
+    /**
+     * @return changes published from now on
+     */
+    public Flux<Change> changes() {
+        return Flux.defer(() -> changes(last));
+    }
+
+    /**
+     * @param after sequence of the last change the subscriber has seen
+     * @return changes after the sequence, then changes as they are published
+     */
+    public Flux<Change> changes(long after) {
+        return Flux.defer(() -> {
+            long[] position = {after};
+            // subscribed to the publications first, so a change published meanwhile is not missed
+            return published.asFlux()
+                    .mergeWith(Mono.just(after))
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.parallel(), 1)
+                    .concatMap(signal -> Flux.<List<Change>>generate(sink -> {
+                        List<Change> batch = read(position);
+                        if (batch.isEmpty()) {
+                            sink.complete();
+                        } else {
+                            sink.next(batch);
+                        }
+                    }).concatMapIterable(Function.identity()), 1);
+        });
+    }
+
+    private synchronized void publish(Change.Type type, long id, long version, Long tagId) {
+        long sequence = last + 1;
+        ring.set((int) (sequence & mask), new Change(sequence, type, id, version, tagId));
+        last = sequence;
+        published.tryEmitNext(sequence);
+    }
+
+    /**
+     * Reads a batch of changes after the position and moves the position to the last of them.
+     */
+    private List<Change> read(long[] position) {
+        long after = position[0];
+        long latest = last;
+        if (after == latest) {
+            return List.of();
+        }
+        if (after > latest || after < Math.max(first, latest - ring.length())) {
+            return reset(position, latest);
+        }
+        long end = Math.min(latest, after + BATCH_SIZE);
+        List<Change> batch = new ArrayList<>((int) (end - after));
+        for (long sequence = after + 1; sequence <= end; sequence++) {
+            Change change = ring.get((int) (sequence & mask));
+            if (change == null || change.sequence() != sequence) {
+                // overwritten while the batch was read
+                return reset(position, last);
+            }
+            batch.add(change);
+        }
+        position[0] = end;
+        return batch;
+    }
+
+    private static List<Change> reset(long[] position, long latest) {
+        position[0] = latest;
+        return List.of(new Change(latest, Change.Type.RESET, 0, 0, null));
+    }
+
+}
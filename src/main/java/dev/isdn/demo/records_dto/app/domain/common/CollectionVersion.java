@@ -0,0 +1,8 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+/**
+ * Number of the entities of a collection and their latest version, which change with every create,
+ * update or delete in the collection.
+ */
+public record CollectionVersion(long count, long version) {
+}
@@ -0,0 +1,103 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses text into text, so it can be kept in the same character column as the plain text.
+ * A compressed value is the deflated UTF-8 bytes in Base64, prefixed with the {@link #COMPRESSED} mark.
+ * Text which is shorter than {@code minLength} or does not get shorter is kept as is,
+ * except for text starting with one of the marks, which is prefixed with the {@link #ESCAPED} mark.
+ * Both marks are characters of the private use area, so values written before compression was enabled
+ * are read unchanged.
+ */
+public class CompressionCodec {
+
+    public static final char COMPRESSED = '\uE000';
+    public static final char ESCAPED = '\uE001';
+
+    private final int minLength;
+    private final int level;
+
+    /**
+     * A codec which does not compress, but escapes the marks.
+     */
+    public CompressionCodec() {
+        this(Integer.MAX_VALUE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public CompressionCodec(int minLength, int level) {
+        this.minLength = Math.max(1, minLength);
+        this.level = level;
+    }
+
+    public String encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() >= minLength) {
+            String compressed = COMPRESSED + Base64.getEncoder().encodeToString(deflate(text.getBytes(StandardCharsets.UTF_8)));
+            if (compressed.length() < text.length()) {
+                return compressed;
+            }
+        }
+        return isMarked(text) ? ESCAPED + text : text;
+    }
+
+    public static String decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        return switch (value.charAt(0)) {
+            case COMPRESSED -> new String(inflate(Base64.getDecoder().decode(value.substring(1))), StandardCharsets.UTF_8);
+            case ESCAPED -> value.substring(1);
+            default -> value;
+        };
+    }
+
+    private static boolean isMarked(String text) {
+        return ! text.isEmpty() && (text.charAt(0) == COMPRESSED || text.charAt(0) == ESCAPED);
+    }
+
+    private byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            while (! deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[8192];
+            while (! inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed value");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -8,6 +8,11 @@ public record Constants() {
     public static final int TAG_NAME_LENGTH = 128;
     public static final int TAG_COLOR_LENGTH = 6;
     public static final String DEFAULT_COLOR = "000000";
+    public static final int NOTE_PREVIEW_LENGTH = 200;
+    public static final int PAGE_LIMIT_DEFAULT = 100;
+    public static final int PAGE_LIMIT_MAX = 1000;
+    public static final int BATCH_LIMIT = 10_000;
+    public static final int TAG_EXPRESSION_LENGTH = 1024;
     public static final Predicate<String> TAG_NAME_PREDICATE = Pattern.compile("^[\\p{Alnum}-_+*&?<>@]+$").asPredicate();
     public static final Predicate<String> TAG_COLOR_PREDICATE = Pattern.compile("^[0-9a-fA-F]+$").asPredicate();
 
@@ -0,0 +1,45 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Position of the last row of a page in a keyset ordered by {@code (key, id)}.
+ * Listings ordered by ID only leave the key as {@link Long#MIN_VALUE}.
+ */
+public record Cursor(long key, long id) {
+
+    public static final Cursor FIRST = new Cursor(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    public static final Comparator<Cursor> ORDER = Comparator.comparingLong(Cursor::key).thenComparingLong(Cursor::id);
+
+    private static final int BYTES = 2 * Long.BYTES;
+
+    public static Cursor afterId(long id) {
+        return new Cursor(Long.MIN_VALUE, id);
+    }
+
+    public String encode() {
+        byte[] bytes = ByteBuffer.allocate(BYTES).putLong(key).putLong(id).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static final Function<String, Optional<Cursor>> decode =
+            (String cursor) -> {
+                if (cursor == null || cursor.isBlank()) {
+                    return Optional.of(FIRST);
+                }
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor.trim()));
+                    return buffer.remaining() == BYTES ?
+                            Optional.of(new Cursor(buffer.getLong(), buffer.getLong())) :
+                            Optional.empty();
+                } catch (IllegalArgumentException e) {
+                    return Optional.empty();
+                }
+            };
+
+}
@@ -0,0 +1,34 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+public record CursorPage<T>(
+        @JsonProperty("items") List<T> items,
+        @JsonProperty("next") String next
+) {
+    @JsonCreator
+    public CursorPage(List<T> items, String next) {
+        Objects.requireNonNull(items);
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Builds a page from up to {@code limit + 1} rows: the extra row only tells that there is a next page.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,419 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Binary snapshot of the tags, the notes, the links between them and the note tombstones, written and read
+ * with plain JDBC. Every table is a section of length-prefixed records ended by {@value #END}, the values
+ * are stored as they are in the columns, so note content is neither decompressed nor compressed again.
+ * A snapshot is written to a temporary file through a {@link FileChannel} from one snapshot of the database,
+ * then moved over the previous one. It is read through {@link java.nio.MappedByteBuffer} windows.
+ * <p>
+ * The snapshot of {@code snapshot.path} is loaded at startup into an empty database, once the singletons are
+ * created and before the web server is started, so no request runs meanwhile. Rows are inserted in JDBC batches
+ * of {@code snapshot.batch-size} in one transaction with the referential integrity checks of H2 off for the whole
+ * database, the links are checked once at the end.
+ */
+@Component
+public class DatabaseSnapshot implements SmartInitializingSingleton {
+
+    private static final Logger LOG = LogManager.getLogger(DatabaseSnapshot.class);
+
+    private static final int MAGIC = 0x52445331;
+    private static final int FORMAT = 2;
+    private static final int END = -1;
+    private static final int NULL_LENGTH = -1;
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    private enum Column { LONG, INT, VERSION, STRING }
+
+    private enum Section {
+        TAGS("tags", "id, version, name, color",
+                Column.LONG, Column.VERSION, Column.STRING, Column.STRING),
+        NOTES("notes", "id, version, created, modified, content, content_length, preview",
+                Column.LONG, Column.VERSION, Column.LONG, Column.LONG, Column.STRING, Column.INT, Column.STRING),
+        LINKS("note_tag", "note_id, tag_id",
+                Column.LONG, Column.LONG),
+        TOMBSTONES("note_tombstones", "note_id, deleted",
+                Column.LONG, Column.LONG);
+
+        private final String table;
+        private final String columnNames;
+        private final Column[] columns;
+
+        Section(String table, String columnNames, Column... columns) {
+            this.table = table;
+            this.columnNames = columnNames;
+            this.columns = columns;
+        }
+
+        private String select() {
+            return "SELECT " + columnNames + " FROM " + table;
+        }
+
+        private String insert() {
+            return "INSERT INTO " + table + " (" + columnNames + ") VALUES (?" + ", ?".repeat(columns.length - 1) + ")";
+        }
+    }
+
+    private final DataSource dataSource;
+    private final Path path;
+    private final int batchSize;
+
+    public DatabaseSnapshot(DataSource dataSource,
+                            @Value("${snapshot.path:}") String path,
+                            @Value("${snapshot.batch-size:1000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.path = path.isBlank() ? null : Path.of(path);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Runs before the web server starts and before the indexes are loaded on {@code ApplicationReadyEvent},
+     * so requests find the loaded rows only, and the indexes are built from them.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            loadOnStartup();
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Snapshot " + path + " is not loaded", e);
+        }
+    }
+
+    private void loadOnStartup() throws IOException, SQLException {
+        if (path == null || ! Files.exists(path)) {
+            return;
+        }
+        if (! isEmpty()) {
+            LOG.warn("Snapshot {} is not loaded, the database is not empty", path);
+            return;
+        }
+        SnapshotStatistics loaded = load(path);
+        LOG.info("Snapshot {} loaded: {} tags, {} notes, {} links, {} tombstones in {} ms", path,
+                loaded.tags(), loaded.notes(), loaded.links(), loaded.tombstones(), loaded.timeMs());
+    }
+
+    /**
+     * Writes the snapshot to {@code snapshot.path}.
+     * @return the written rows, or empty if no path is configured
+     */
+    public Optional<SnapshotStatistics> export() throws IOException, SQLException {
+        return path == null ? Optional.empty() : Optional.of(export(path));
+    }
+
+    public synchronized SnapshotStatistics export(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Path absolute = target.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        long[] rows = new long[Section.values().length];
+        long bytes;
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                 Connection connection = dataSource.getConnection()) {
+                Output output = new Output(channel);
+                output.reserve(2 * Integer.BYTES).putInt(MAGIC).putInt(FORMAT);
+                readSnapshot(connection, () -> {
+                    for (Section section : Section.values()) {
+                        rows[section.ordinal()] = write(section, connection, output);
+                    }
+                });
+                output.reserve(Integer.BYTES).putInt(MAGIC);
+                output.flush();
+                channel.force(true);
+                bytes = channel.size();
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return statistics(absolute, rows, bytes, start);
+    }
+
+    /**
+     * Loads a snapshot into an empty database, all rows or none. The database must not be written meanwhile:
+     * it is checked to be empty before the load, and the referential integrity checks are off for all sessions.
+     * @throws IllegalStateException if the database is not empty or the snapshot is not valid
+     */
+    public synchronized SnapshotStatistics load(Path source) throws IOException, SQLException {
+        long start = System.nanoTime();
+        if (! isEmpty()) {
+            throw new IllegalStateException("Database is not empty");
+        }
+        long[] rows = new long[Section.values().length];
+        long bytes;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             Connection connection = dataSource.getConnection()) {
+            bytes = channel.size();
+            Input input = new Input(channel);
+            if (input.ensure(2 * Integer.BYTES).getInt() != MAGIC || input.window.getInt() != FORMAT) {
+                throw new IllegalStateException("Not a snapshot: " + source);
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            execute(connection, "SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                connection.setAutoCommit(false);
+                for (Section section : Section.values()) {
+                    rows[section.ordinal()] = read(section, input, connection);
+                }
+                if (input.ensure(Integer.BYTES).getInt() != MAGIC) {
+                    throw new IllegalStateException("Snapshot is not complete: " + source);
+                }
+                checkLinks(connection);
+                connection.commit();
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                execute(connection, "SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+        return statistics(source.toAbsolutePath(), rows, bytes, start);
+    }
+
+    private boolean isEmpty() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT " + Arrays.stream(Section.values())
+                     .map(section -> "NOT EXISTS (SELECT 1 FROM " + section.table + ")")
+                     .collect(Collectors.joining(" AND ")))) {
+            return result.next() && result.getBoolean(1);
+        }
+    }
+
+    private interface SqlAction {
+        void run() throws IOException, SQLException;
+    }
+
+    /**
+     * Runs the reads in one transaction which sees the database as of its start, rows are read as they are consumed.
+     */
+    private static void readSnapshot(Connection connection, SqlAction reads) throws IOException, SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        execute(connection, "SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT");
+        execute(connection, "SET LAZY_QUERY_EXECUTION TRUE");
+        connection.setAutoCommit(false);
+        try {
+            reads.run();
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+            execute(connection, "SET LAZY_QUERY_EXECUTION FALSE");
+            execute(connection, "SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL READ COMMITTED");
+        }
+    }
+
+    private static long write(Section section, Connection connection, Output output) throws IOException, SQLException {
+        Column[] columns = section.columns;
+        byte[][] strings = new byte[columns.length][];
+        long count = 0;
+        output.reserve(Integer.BYTES).putInt(section.ordinal());
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(section.select())) {
+            while (rows.next()) {
+                int length = 0;
+                for (int i = 0; i < columns.length; i++) {
+                    length += switch (columns[i]) {
+                        case LONG, VERSION -> Long.BYTES;
+                        case INT -> Integer.BYTES;
+                        case STRING -> {
+                            String value = rows.getString(i + 1);
+                            strings[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                            yield Integer.BYTES + (value == null ? 0 : strings[i].length);
+                        }
+                    };
+                }
+                ByteBuffer buffer = output.reserve(Integer.BYTES + length).putInt(length);
+                for (int i = 0; i < columns.length; i++) {
+                    switch (columns[i]) {
+                        case LONG -> buffer.putLong(rows.getLong(i + 1));
+                        case INT -> buffer.putInt(rows.getInt(i + 1));
+                        case VERSION -> {
+                            long version = rows.getLong(i + 1);
+                            buffer.putLong(rows.wasNull() ? NO_VERSION : version);
+                        }
+                        case STRING -> {
+                            if (strings[i] == null) {
+                                buffer.putInt(NULL_LENGTH);
+                            } else {
+                                buffer.putInt(strings[i].length).put(strings[i]);
+                            }
+                        }
+                    }
+                }
+                count++;
+            }
+        }
+        output.reserve(Integer.BYTES).putInt(END);
+        return count;
+    }
+
+    private long read(Section section, Input input, Connection connection) throws IOException, SQLException {
+        if (input.ensure(Integer.BYTES).getInt() != section.ordinal()) {
+            throw new IllegalStateException("Snapshot section not found: " + section.table);
+        }
+        Column[] columns = section.columns;
+        long count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(section.insert())) {
+            ByteBuffer record;
+            while ((record = input.next()) != null) {
+                for (int i = 0; i < columns.length; i++) {
+                    switch (columns[i]) {
+                        case LONG -> statement.setLong(i + 1, record.getLong());
+                        case INT -> statement.setInt(i + 1, record.getInt());
+                        case VERSION -> {
+                            long version = record.getLong();
+                            if (version == NO_VERSION) {
+                                statement.setNull(i + 1, Types.BIGINT);
+                            } else {
+                                statement.setLong(i + 1, version);
+                                EntityVersionType.advanceTo(version);
+                            }
+                        }
+                        case STRING -> {
+                            int length = record.getInt();
+                            if (length == NULL_LENGTH) {
+                                statement.setNull(i + 1, Types.VARCHAR);
+                            } else {
+                                byte[] bytes = new byte[length];
+                                record.get(bytes);
+                                statement.setString(i + 1, new String(bytes, StandardCharsets.UTF_8));
+                            }
+                        }
+                    }
+                }
+                statement.addBatch();
+                if (++count % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                statement.executeBatch();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The deferred check of the foreign keys of the join table, the only table loaded with references.
+     */
+    private static void checkLinks(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM note_tag nt " +
+                     "WHERE NOT EXISTS (SELECT 1 FROM notes n WHERE n.id = nt.note_id) " +
+                     "OR NOT EXISTS (SELECT 1 FROM tags t WHERE t.id = nt.tag_id)")) {
+            if (result.next() && result.getLong(1) > 0) {
+                throw new IllegalStateException("Snapshot links missing notes or tags: " + result.getLong(1));
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static SnapshotStatistics statistics(Path path, long[] rows, long bytes, long start) {
+        return new SnapshotStatistics(path.toString(), rows[Section.TAGS.ordinal()], rows[Section.NOTES.ordinal()],
+                rows[Section.LINKS.ordinal()], rows[Section.TOMBSTONES.ordinal()], bytes,
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Collects records in a direct buffer which is written to the channel when it is full.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (buffer.capacity() < bytes) {
+                    buffer = ByteBuffer.allocateDirect(bytes);
+                }
+            }
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Maps the file window by window, a record is never split between two windows.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+        private long windowStart = 0;
+
+        private Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        /**
+         * @return the next record of the section, or null at the end of the section
+         */
+        private ByteBuffer next() throws IOException {
+            int length = ensure(Integer.BYTES).getInt();
+            if (length == END) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IllegalStateException("Snapshot record length is not valid: " + length);
+            }
+            ByteBuffer record = ensure(length).slice(window.position(), length);
+            window.position(window.position() + length);
+            return record;
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (position + bytes > size) {
+                    throw new IllegalStateException("Snapshot is truncated at " + position);
+                }
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, Math.max(WINDOW_SIZE, bytes)));
+                windowStart = position;
+            }
+            return window;
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Advances the {@link EntityVersionType} counter past the versions already in the database at startup,
+ * so a database kept over restarts does not get versions it has seen before.
+ */
+@Component
+public class EntityVersionSeed {
+
+    private final DataSource dataSource;
+
+    public EntityVersionSeed(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void seed() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(
+                     "SELECT (SELECT MAX(version) FROM tags), (SELECT MAX(version) FROM notes)")) {
+            if (result.next()) {
+                EntityVersionType.advanceTo(Math.max(result.getLong(1), result.getLong(2)));
+            }
+        }
+    }
+
+}
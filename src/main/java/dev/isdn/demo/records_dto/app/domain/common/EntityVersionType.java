@@ -0,0 +1,50 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.LongType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code @Version} type of the entities: every version is taken from one counter for all the entities,
+ * so a write gets a version greater than any version before it, whatever the clock does. Two writes of a row
+ * never share a version, which makes the versions strong ETags, and the latest version of a collection
+ * changes with every write into it.
+ * <p>
+ * The counter starts at the current time in microseconds, so versions keep growing over restarts of
+ * an in-memory database, and is advanced past the versions found in the database at startup and after
+ * a snapshot load. Rows written with the R2DBC repositories take their versions from the same counter.
+ */
+public class EntityVersionType extends LongType {
+
+    private static final AtomicLong LAST = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    public static long nextVersion() {
+        return LAST.incrementAndGet();
+    }
+
+    /**
+     * @return a version greater than the given one and than any version taken before
+     */
+    public static long nextVersion(long current) {
+        return LAST.updateAndGet(last -> Math.max(last, current) + 1);
+    }
+
+    /**
+     * Makes the next versions greater than a version written past the counter.
+     */
+    public static void advanceTo(long version) {
+        LAST.accumulateAndGet(version, Math::max);
+    }
+
+    @Override
+    public Long seed(SharedSessionContractImplementor session) {
+        return nextVersion();
+    }
+
+    @Override
+    public Long next(Long current, SharedSessionContractImplementor session) {
+        return nextVersion(current);
+    }
+
+}
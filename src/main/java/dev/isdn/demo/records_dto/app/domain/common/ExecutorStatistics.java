@@ -0,0 +1,28 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ExecutorStatistics(
+        @JsonProperty("poolSize") int poolSize,
+        @JsonProperty("active") int active,
+        @JsonProperty("queued") int queued,
+        @JsonProperty("queueCapacity") int queueCapacity,
+        @JsonProperty("completed") long completed,
+        @JsonProperty("rejected") long rejected,
+        @JsonProperty("waitTimeMeanMs") double waitTimeMeanMs,
+        @JsonProperty("waitTimeMaxMs") double waitTimeMaxMs
+) {
+    @JsonCreator
+    public ExecutorStatistics(int poolSize, int active, int queued, int queueCapacity, long completed, long rejected,
+                              double waitTimeMeanMs, double waitTimeMaxMs) {
+        this.poolSize = poolSize;
+        this.active = active;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.completed = completed;
+        this.rejected = rejected;
+        this.waitTimeMeanMs = waitTimeMeanMs;
+        this.waitTimeMaxMs = waitTimeMaxMs;
+    }
+}
@@ -24,6 +24,12 @@ public record Functions() {
                             .filter(Constants.TAG_COLOR_PREDICATE)
                             .map(s -> s.toUpperCase(Locale.ROOT));
 
+    public static final Function<Integer, Integer> checkPageLimit =
+            (Integer limit) ->
+                    Optional.ofNullable(limit)
+                            .map(l -> Math.max(1, Math.min(l, Constants.PAGE_LIMIT_MAX)))
+                            .orElse(Constants.PAGE_LIMIT_DEFAULT);
+
     public static final Function<TagDto, Optional<TagDto>> checkTagDto =
             (TagDto tag) ->
                     Optional.ofNullable(tag).filter(t -> t.id() > 0);
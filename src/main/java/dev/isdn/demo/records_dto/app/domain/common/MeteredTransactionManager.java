@@ -0,0 +1,79 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JpaTransactionManager} which times every physical transaction from its begin to its cleanup
+ * ({@code transactions}, tagged by the outcome). Participating transactions are not timed separately.
+ * Replaces the transaction manager of Spring Boot.
+ */
+@Component("transactionManager")
+public class MeteredTransactionManager extends JpaTransactionManager {
+
+    private final transient Timer committed;
+    private final transient Timer rolledBack;
+
+    // a suspended transaction stays below the one which runs on the same thread
+    private final transient ThreadLocal<Deque<Transaction>> transactions = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public MeteredTransactionManager(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        super(entityManagerFactory);
+        this.committed = timer(registry, "commit");
+        this.rolledBack = timer(registry, "rollback");
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        transactions.get().push(new Transaction(System.nanoTime()));
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        Transaction current = transactions.get().peek();
+        if (current != null) {
+            current.committed = true;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            Transaction current = transactions.get().poll();
+            if (current != null) {
+                (current.committed ? committed : rolledBack)
+                        .record(System.nanoTime() - current.started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String outcome) {
+        return Timer.builder("transactions")
+                .description("Time of JPA transactions")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static final class Transaction {
+
+        private final long started;
+        private boolean committed = false;
+
+        private Transaction(long started) {
+            this.started = started;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+/**
+ * Counts the JDBC statements run on the current thread, the statements are reported by {@link StatementRecorder}.
+ * A counter started inside another one also counts for the outer one, so a service call counts
+ * for the request which made it. A counter can be bound to another thread, for example to the thread
+ * of {@link ServiceExecutor} which runs the call of a request.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the counter which was current before.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final QueryCounter parent;
+    private int count = 0;
+    private long timeNanos = 0;
+    private long slowestNanos = 0;
+    private String slowest = null;
+    private Scope scope = null;
+
+    private QueryCounter(QueryCounter parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return a new counter, not bound to any thread
+     */
+    public static QueryCounter create() {
+        return new QueryCounter(null);
+    }
+
+    /**
+     * Starts a counter nested in the current one on this thread, {@link #stop()} must be called on the same thread.
+     */
+    public static QueryCounter start() {
+        QueryCounter counter = new QueryCounter(CURRENT.get());
+        counter.scope = bind(counter);
+        return counter;
+    }
+
+    /**
+     * Makes the counter which was current before {@link #start()} current again.
+     * @return the statistics of the statements counted
+     */
+    public QueryStatistics stop() {
+        if (scope != null) {
+            scope.close();
+            scope = null;
+        }
+        return statistics();
+    }
+
+    /**
+     * Makes the counter current on this thread until the scope is closed, a {@code null} counter changes nothing.
+     */
+    public static Scope bind(QueryCounter counter) {
+        if (counter == null) {
+            return () -> {};
+        }
+        QueryCounter previous = CURRENT.get();
+        CURRENT.set(counter);
+        return () -> CURRENT.set(previous);
+    }
+
+    /**
+     * @return whether statements of this thread are counted
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long nanos) {
+        for (QueryCounter counter = CURRENT.get(); counter != null; counter = counter.parent) {
+            counter.add(sql, nanos);
+        }
+    }
+
+    public synchronized QueryStatistics statistics() {
+        return new QueryStatistics(count, timeNanos, slowestNanos, slowest);
+    }
+
+    private synchronized void add(String sql, long nanos) {
+        count++;
+        timeNanos += nanos;
+        if (nanos >= slowestNanos) {
+            slowestNanos = nanos;
+            slowest = sql;
+        }
+    }
+
+}
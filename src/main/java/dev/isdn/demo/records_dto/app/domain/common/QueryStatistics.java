@@ -0,0 +1,17 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+/**
+ * JDBC statements run by an operation: their number, their total execution time and the slowest one.
+ */
+public record QueryStatistics(int count, long timeNanos, long slowestNanos, String slowest) {
+
+    public static final QueryStatistics NONE = new QueryStatistics(0, 0, 0, null);
+
+    public double timeMs() {
+        return timeNanos / 1e6;
+    }
+
+    public double slowestMs() {
+        return slowestNanos / 1e6;
+    }
+}
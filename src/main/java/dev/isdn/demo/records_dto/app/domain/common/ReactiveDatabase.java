@@ -0,0 +1,84 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import io.r2dbc.spi.Row;
+
+/**
+ * Non-blocking access to the database of the JPA data source ({@code r2dbc.url} must point to the same database),
+ * used by the reactive repositories of the {@code r2dbc} profile. The schema is still created by Hibernate.
+ * The connection pool is not a bean, so the JDBC data source and the JPA transaction manager
+ * are not replaced by the R2DBC auto-configuration.
+ */
+@Component
+@Profile("r2dbc")
+public class ReactiveDatabase implements DisposableBean {
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+    private final TransactionalOperator transactionalOperator;
+    private final SequenceGenerator ids = new BlockSequenceGenerator();
+
+    public ReactiveDatabase(@Value("${r2dbc.url}") String url,
+                            @Value("${spring.datasource.username}") String username,
+                            @Value("${spring.datasource.password}") String password,
+                            @Value("${r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+        this.client = DatabaseClient.create(pool);
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    public <T> Mono<T> transactional(Mono<T> mono) {
+        return transactionalOperator.transactional(mono);
+    }
+
+    public <T> Flux<T> transactional(Flux<T> flux) {
+        return transactionalOperator.transactional(flux);
+    }
+
+    /**
+     * @return a new entity ID, generated the same way as the IDs of the JPA entities
+     */
+    public long nextId() {
+        return ids.nextNumber();
+    }
+
+    /**
+     * @return a new entity version, taken from the counter of the JPA entities
+     */
+    public long nextVersion() {
+        return EntityVersionType.nextVersion();
+    }
+
+    public static long version(Row row) {
+        return row.get("version", Long.class);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+}
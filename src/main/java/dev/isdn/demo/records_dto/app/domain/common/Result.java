@@ -1,7 +1,31 @@
 package dev.isdn.demo.records_dto.app.domain.common;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "result")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = Result.Ok.class, name = "Ok"),
+        @JsonSubTypes.Type(value = Result.Done.class, name = "Done"),
+        @JsonSubTypes.Type(value = Result.NoSuchElement.class, name = "NoSuchElement"),
+        @JsonSubTypes.Type(value = Result.Error.class, name = "Error")
+})
 public sealed interface Result {
     record Ok() implements Result {};
-    record NoSuchElement(long element) implements Result {};
+    record Done(Record element) implements Result {};
+    /**
+     * @param type the kind of the missing element, {@code "note"} or {@code "tag"}
+     * @param element the ID of the missing element
+     */
+    record NoSuchElement(String type, long element) implements Result {
+
+        public static NoSuchElement note(long noteId) {
+            return new NoSuchElement("note", noteId);
+        }
+
+        public static NoSuchElement tag(long tagId) {
+            return new NoSuchElement("tag", tagId);
+        }
+    };
     record Error() implements Result {};
 }
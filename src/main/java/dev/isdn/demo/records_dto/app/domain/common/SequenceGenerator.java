@@ -1,5 +1,7 @@
 package dev.isdn.demo.records_dto.app.domain.common;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
@@ -9,23 +11,40 @@ import org.hibernate.type.Type;
 import java.io.Serializable;
 import java.security.SecureRandom;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 public class SequenceGenerator implements IdentifierGenerator {
 
     private final SecureRandom secureRandom = new SecureRandom();
 
+    // generators are created by Hibernate, so the timer is registered in the global registry
+    private final Timer timer = Timer.builder("ids.generated")
+            .description("ID generation time")
+            .tag("generator", getClass().getSimpleName())
+            .register(Metrics.globalRegistry);
+
     public SequenceGenerator() {}
 
     @Override
     public Serializable generate(SharedSessionContractImplementor sharedSessionContractImplementor, Object o)
             throws HibernateException {
-        return this.getNumber();
+        return this.nextNumber();
     }
 
     @Override
     public void configure(Type type, Properties properties, ServiceRegistry serviceRegistry) throws MappingException {
     }
 
+    /**
+     * @return the next number of {@link #getNumber()}, the generation time is recorded
+     */
+    public long nextNumber() {
+        long start = System.nanoTime();
+        long number = getNumber();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return number;
+    }
+
     public synchronized long getNumber() {
         byte[] bytesPool = new byte[16];
         short i = 0;
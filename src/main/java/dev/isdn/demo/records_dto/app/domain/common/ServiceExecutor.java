@@ -0,0 +1,89 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs blocking service calls on a fixed pool with a bounded queue, off the event loop threads.
+ * The pool size should match the connection pool, more threads would only wait for connections.
+ * A call which does not fit into the queue fails with {@link RejectedExecutionException}.
+ */
+@Component
+public class ServiceExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAccumulator waitTimeMax = new LongAccumulator(Math::max, 0);
+
+    public ServiceExecutor(@Value("${services.executor.pool-size:10}") int poolSize,
+                           @Value("${services.executor.queue-capacity:1000}") int queueCapacity) {
+        AtomicInteger threads = new AtomicInteger();
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "service-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Service executor queue is full");
+                });
+        this.executor.prestartAllCoreThreads();
+        this.scheduler = Schedulers.fromExecutorService(executor, "service");
+    }
+
+    /**
+     * Runs the call on the pool, the {@link QueryCounter} of the subscriber context (if any) counts its statements.
+     */
+    public <T> Mono<T> call(Callable<T> call) {
+        return Mono.deferContextual(context -> {
+            long queued = System.nanoTime();
+            QueryCounter queries = context.getOrDefault(QueryCounter.class, null);
+            return Mono.fromCallable(() -> {
+                        long wait = System.nanoTime() - queued;
+                        waitCount.increment();
+                        waitTime.add(wait);
+                        waitTimeMax.accumulate(wait);
+                        try (QueryCounter.Scope scope = QueryCounter.bind(queries)) {
+                            return call.call();
+                        }
+                    })
+                    .subscribeOn(scheduler);
+        });
+    }
+
+    public Mono<Void> run(Runnable run) {
+        return call(() -> {
+            run.run();
+            return null;
+        });
+    }
+
+    public ExecutorStatistics statistics() {
+        long count = waitCount.sum();
+        return new ExecutorStatistics(executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                queueCapacity, executor.getCompletedTaskCount(), rejected.sum(),
+                count > 0 ? waitTime.sum() / 1e6 / count : 0, waitTimeMax.get() / 1e6);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,147 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the public methods of services ({@code services.calls}) and of the R2DBC repositories
+ * ({@code repositories.calls}), Spring Data repositories are timed by Spring Boot
+ * ({@code spring.data.repository.invocations}). Returned {@link Result}s are counted by variant
+ * ({@code services.results}). A {@link Mono} or a {@link Flux} is timed from its subscription to its completion.
+ * The JDBC statements of a blocking service call are counted with {@link QueryCounter}: their number
+ * ({@code services.queries}) and their execution time ({@code services.jdbc}) per call.
+ * Meters are looked up once per method, so a call costs two {@link System#nanoTime()} calls and a timer update.
+ * The advice wraps the transaction advice, so the time of a transactional method includes its commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint call) throws Throwable {
+        return timed(call, "services");
+    }
+
+    @Around("@within(org.springframework.stereotype.Repository) && execution(public * *(..))")
+    public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+        return timed(call, "repositories");
+    }
+
+    private Object timed(ProceedingJoinPoint call, String layer) throws Throwable {
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        Meters methodMeters = meters.computeIfAbsent(method, m -> new Meters(layer, m));
+        QueryCounter queries = methodMeters.queries == null ? null : QueryCounter.start();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call.proceed();
+        } catch (Throwable e) {
+            methodMeters.record(start, e);
+            throw e;
+        } finally {
+            if (queries != null) {
+                methodMeters.record(queries.stop());
+            }
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono
+                        .doOnNext(methodMeters::count)
+                        .doOnSuccess(value -> methodMeters.record(subscribed, null))
+                        .doOnError(e -> methodMeters.record(subscribed, e));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux
+                        .doOnComplete(() -> methodMeters.record(subscribed, null))
+                        .doOnError(e -> methodMeters.record(subscribed, e));
+            });
+        }
+        methodMeters.record(start, null);
+        methodMeters.count(result);
+        return result;
+    }
+
+    private final class Meters {
+
+        private final String layer;
+        private final String className;
+        private final String methodName;
+        private final Timer timer;
+        private final DistributionSummary queries;
+        private final Timer jdbc;
+        private final Map<Class<?>, Counter> results = new ConcurrentHashMap<>();
+
+        private Meters(String layer, Method method) {
+            this.layer = layer;
+            this.className = method.getDeclaringClass().getSimpleName();
+            this.methodName = method.getName();
+            this.timer = timer("none");
+            boolean blocking = layer.equals("services")
+                    && ! Mono.class.isAssignableFrom(method.getReturnType())
+                    && ! Flux.class.isAssignableFrom(method.getReturnType());
+            this.queries = blocking ? DistributionSummary.builder("services.queries")
+                    .description("JDBC statements per service call")
+                    .tags("class", className, "method", methodName)
+                    .register(registry) : null;
+            this.jdbc = blocking ? Timer.builder("services.jdbc")
+                    .description("Time of the JDBC statements per service call")
+                    .tags("class", className, "method", methodName)
+                    .register(registry) : null;
+        }
+
+        private void record(QueryStatistics statistics) {
+            queries.record(statistics.count());
+            jdbc.record(statistics.timeNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void record(long start, Throwable exception) {
+            Timer t = exception == null ? timer : timer(exception.getClass().getSimpleName());
+            t.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private void count(Object result) {
+            if (result instanceof Result r) {
+                results.computeIfAbsent(r.getClass(), variant -> Counter.builder("services.results")
+                                .description("Results of service calls by variant")
+                                .tags("class", className, "method", methodName, "result", variant.getSimpleName())
+                                .register(registry))
+                        .increment();
+            }
+        }
+
+        private Timer timer(String exception) {
+            return Timer.builder(layer + ".calls")
+                    .description("Time of calls of " + layer)
+                    .tags("class", className, "method", methodName, "exception", exception)
+                    .register(registry);
+        }
+    }
+
+}
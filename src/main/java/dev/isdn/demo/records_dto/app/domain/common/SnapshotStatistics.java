@@ -0,0 +1,31 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+/**
+ * Rows of a snapshot written or loaded by {@link DatabaseSnapshot}.
+ */
+public record SnapshotStatistics(
+        @JsonProperty("path") String path,
+        @JsonProperty("tags") long tags,
+        @JsonProperty("notes") long notes,
+        @JsonProperty("links") long links,
+        @JsonProperty("tombstones") long tombstones,
+        @JsonProperty("bytes") long bytes,
+        @JsonProperty("timeMs") double timeMs
+) {
+    @JsonCreator
+    public SnapshotStatistics(String path, long tags, long notes, long links, long tombstones, long bytes,
+                              double timeMs) {
+        Objects.requireNonNull(path);
+        this.path = path;
+        this.tags = tags;
+        this.notes = notes;
+        this.links = links;
+        this.tombstones = tombstones;
+        this.bytes = bytes;
+        this.timeMs = timeMs;
+    }
+}
@@ -0,0 +1,117 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps the JDBC data source, so every executed statement is timed and reported to {@link QueryCounter}.
+ * Statements slower than {@code jdbc.slow-statement-threshold} are logged with the types of their bind
+ * parameters, the values are never logged. The time covers the execution of a statement, not reading its rows.
+ * Connections of the R2DBC backend are not covered.
+ */
+@Component
+public class StatementRecorder implements BeanPostProcessor {
+
+    private static final Logger LOG = LogManager.getLogger(StatementRecorder.class);
+
+    private final long thresholdNanos;
+
+    public StatementRecorder(@Value("${jdbc.slow-statement-threshold:100ms}") Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && ! Proxy.isProxyClass(bean.getClass())) {
+            // all interfaces, so the pool is still closed and unwrapped by Spring Boot
+            return proxy(dataSource, ClassUtils.getAllInterfaces(dataSource), (target, method, args) ->
+                    method.getName().equals("getConnection") ?
+                            proxy(invoke(target, method, args), new Class<?>[]{Connection.class}, this::connection) :
+                            invoke(target, method, args));
+        }
+        return bean;
+    }
+
+    private Object connection(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        return switch (method.getName()) {
+            case "createStatement" -> statement(result, Statement.class, null);
+            case "prepareStatement" -> statement(result, PreparedStatement.class, (String) args[0]);
+            case "prepareCall" -> statement(result, CallableStatement.class, (String) args[0]);
+            default -> result;
+        };
+    }
+
+    private Object statement(Object statement, Class<?> type, String sql) {
+        Map<Integer, String> parameters = new TreeMap<>();
+        int[] batch = {0};
+        return proxy(statement, new Class<?>[]{type}, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                long start = System.nanoTime();
+                try {
+                    return invoke(target, method, args);
+                } finally {
+                    recorded(executed, System.nanoTime() - start, parameters, batch[0]);
+                    batch[0] = 0;
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer index
+                    && PreparedStatement.class.isAssignableFrom(method.getDeclaringClass())) {
+                parameters.put(index, name.equals("setNull") || args[1] == null ? "null" : args[1].getClass().getSimpleName());
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batch[0]++;
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private void recorded(String sql, long nanos, Map<Integer, String> parameters, int batch) {
+        QueryCounter.record(sql, nanos);
+        if (nanos >= thresholdNanos && LOG.isWarnEnabled()) {
+            String types = parameters.entrySet().stream()
+                    .map(p -> "?" + p.getKey() + "=" + p.getValue())
+                    .collect(Collectors.joining(", ", "[", "]"));
+            LOG.warn("Slow statement, {} ms{}: {} {}", nanos / 1_000_000, batch > 0 ? ", batch of " + batch : "", sql, types);
+        }
+    }
+
+    private static Object proxy(Object target, Class<?>[] interfaces, Handler handler) {
+        return Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> handler.invoke(target, method, args));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+}
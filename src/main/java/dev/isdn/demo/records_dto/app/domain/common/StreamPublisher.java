@@ -0,0 +1,115 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Publishes a repository {@link Stream} as a {@link Flux}.
+ * The query runs inside a read-only transaction on a worker thread, which keeps the connection open
+ * while rows are consumed. Rows are pulled from the result set only when the subscriber requests them,
+ * so the amount of memory used does not depend on the number of rows.
+ * <p>
+ * At most {@code streams.max-concurrent} streams are open at a time, so they leave connections of the pool
+ * to the other calls; one more fails with {@link RejectedExecutionException}. A stream without demand
+ * for {@code streams.idle-timeout} fails with {@link TimeoutException} and releases its connection.
+ */
+@Component
+public class StreamPublisher {
+
+    private enum Demand { READY, CANCELLED, IDLE }
+
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler scheduler;
+    private final Semaphore streams;
+    private final long idleTimeoutMs;
+
+    public StreamPublisher(PlatformTransactionManager transactionManager,
+                           @Value("${streams.max-concurrent:5}") int maxConcurrent,
+                           @Value("${streams.idle-timeout:30s}") Duration idleTimeout) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.scheduler = Schedulers.boundedElastic();
+        this.streams = new Semaphore(Math.max(1, maxConcurrent));
+        this.idleTimeoutMs = Math.max(1, idleTimeout.toMillis());
+    }
+
+    public <T> Flux<T> publish(Supplier<Stream<T>> query) {
+        return Flux.<T>create(sink -> {
+                    // taken by the worker, so a stream cancelled before it starts never holds a permit
+                    if (! streams.tryAcquire()) {
+                        sink.error(new RejectedExecutionException("Too many open streams"));
+                        return;
+                    }
+                    Object demand = new Object();
+                    sink.onRequest(n -> signal(demand));
+                    sink.onCancel(() -> signal(demand));
+                    Demand last = Demand.CANCELLED;
+                    RuntimeException failure = null;
+                    try {
+                        last = transactionTemplate.execute(status -> {
+                            try (Stream<T> stream = query.get()) {
+                                Iterator<T> rows = stream.iterator();
+                                Demand next;
+                                while ((next = awaitDemand(sink, demand)) == Demand.READY && rows.hasNext()) {
+                                    sink.next(rows.next());
+                                }
+                                return next;
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        // before the end is signalled, so the subscriber can open the next stream right away
+                        streams.release();
+                    }
+                    if (failure != null) {
+                        sink.error(failure);
+                    } else if (last == Demand.IDLE) {
+                        sink.error(new TimeoutException("No demand for " + idleTimeoutMs + " ms"));
+                    } else {
+                        sink.complete();
+                    }
+                })
+                // requests must reach the sink directly, the worker is busy with the query
+                .subscribeOn(scheduler, false);
+    }
+
+    private static void signal(Object demand) {
+        synchronized (demand) {
+            demand.notifyAll();
+        }
+    }
+
+    private Demand awaitDemand(FluxSink<?> sink, Object demand) {
+        long deadline = System.nanoTime() + idleTimeoutMs * 1_000_000;
+        synchronized (demand) {
+            try {
+                while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+                    long waitMs = (deadline - System.nanoTime()) / 1_000_000;
+                    if (waitMs <= 0) {
+                        return Demand.IDLE;
+                    }
+                    demand.wait(waitMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Demand.CANCELLED;
+            }
+        }
+        return sink.isCancelled() ? Demand.CANCELLED : Demand.READY;
+    }
+
+}
@@ -0,0 +1,80 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.hibernate.MappingException;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import java.security.SecureRandom;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates roughly time-ordered (k-sortable) 63-bit numbers:
+ * <pre>
+ *  0 | 41 bits: milliseconds since {@link #EPOCH} | 10 bits: worker | 12 bits: counter
+ * </pre>
+ * New rows are appended to the right edge of the primary key index instead of landing on a random page.
+ * When the counter of the current millisecond is exhausted the next millisecond is borrowed,
+ * so the generator never blocks and never goes backwards, even if the system clock does.
+ * The worker field can be set with the {@value #WORKER_ID} parameter of {@code @GenericGenerator};
+ * otherwise every instance in the JVM gets its own one.
+ */
+public class TimeOrderedSequenceGenerator extends SequenceGenerator {
+
+    public static final String WORKER_ID = "worker_id";
+    public static final long EPOCH = 1640995200000L; // 2022-01-01T00:00:00Z
+
+    public static final int WORKER_BITS = 10;
+    public static final int COUNTER_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private static final AtomicInteger instances = new AtomicInteger(new SecureRandom().nextInt());
+
+    private final AtomicLong state = new AtomicLong();
+
+    private long workerId = instances.getAndIncrement() & MAX_WORKER_ID;
+
+    public TimeOrderedSequenceGenerator() {}
+
+    public TimeOrderedSequenceGenerator(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("worker id must be in [0, " + MAX_WORKER_ID + "]: " + workerId);
+        }
+        this.workerId = workerId;
+    }
+
+    @Override
+    public void configure(Type type, Properties properties, ServiceRegistry serviceRegistry) throws MappingException {
+        if (properties.containsKey(WORKER_ID)) {
+            long id = ConfigurationHelper.getInt(WORKER_ID, properties, 0);
+            if (id < 0 || id > MAX_WORKER_ID) {
+                throw new MappingException("Parameter " + WORKER_ID + " must be in [0, " + MAX_WORKER_ID + "]: " + id);
+            }
+            this.workerId = id;
+        }
+    }
+
+    @Override
+    public long getNumber() {
+        long now = System.currentTimeMillis() - EPOCH;
+        long prev, next;
+        do {
+            prev = state.get();
+            next = now > (prev >>> COUNTER_BITS) ? now << COUNTER_BITS : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+        return (next >>> COUNTER_BITS) << (WORKER_BITS + COUNTER_BITS)
+                | workerId << COUNTER_BITS
+                | (next & COUNTER_MASK);
+    }
+
+    public static long timestampOf(long number) {
+        return (number >>> (WORKER_BITS + COUNTER_BITS)) + EPOCH;
+    }
+
+    public static long workerOf(long number) {
+        return (number >>> COUNTER_BITS) & MAX_WORKER_ID;
+    }
+
+}
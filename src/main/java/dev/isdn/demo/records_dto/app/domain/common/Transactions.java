@@ -0,0 +1,25 @@
+package dev.isdn.demo.records_dto.app.domain.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public record Transactions() {
+
+    /**
+     * Runs the action once the current transaction commits, at once outside of a transaction.
+     * An action of a rolled back transaction is dropped.
+     */
+    public static void afterCommit(Runnable action) {
+        if (! TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -1,6 +1,7 @@
 package dev.isdn.demo.records_dto.app.domain.note;
 
 import dev.isdn.demo.records_dto.app.domain.common.AbstractEntity;
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
 import dev.isdn.demo.records_dto.app.domain.tag.Tag;
 import org.hibernate.annotations.Nationalized;
 import javax.persistence.*;
@@ -9,7 +10,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity(name = "notes")
-@Table(name = "notes")
+@Table(name = "notes", indexes = @Index(name = "notes_modified_id", columnList = "modified, id"))
 public class Note extends AbstractEntity {
 
     @Column(nullable = false)
@@ -21,8 +22,16 @@ public class Note extends AbstractEntity {
     @Lob
     @Nationalized
     @Column(nullable = false)
+    @Convert(converter = NoteContentConverter.class)
     private String content;
 
+    @Column(name = "content_length", nullable = false)
+    private int contentLength;
+
+    @Nationalized
+    @Column(nullable = false, length = Constants.NOTE_PREVIEW_LENGTH)
+    private String preview;
+
     @ManyToMany(
             fetch = FetchType.LAZY,
             cascade = { CascadeType.MERGE }
@@ -30,13 +39,14 @@ public class Note extends AbstractEntity {
     @JoinTable(
             name = "note_tag",
             joinColumns = @JoinColumn(name = "note_id", referencedColumnName = "id"),
-            inverseJoinColumns = @JoinColumn(name = "tag_id", referencedColumnName = "id")
+            inverseJoinColumns = @JoinColumn(name = "tag_id", referencedColumnName = "id"),
+            indexes = @Index(name = "note_tag_tag_id_note_id", columnList = "tag_id, note_id")
     )
     private Set<Tag> tags = new HashSet<>();
 
     protected Note() {
         this.created = this.modified = Instant.now().getEpochSecond();
-        this.content = "";
+        this.content = this.preview = "";
     }
 
     public long getCreated() {
@@ -55,12 +65,34 @@ public class Note extends AbstractEntity {
         return tags;
     }
 
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
     protected Note setContent(String content) {
         this.modified = Instant.now().getEpochSecond();
         this.content = content;
+        this.contentLength = content.length();
+        this.preview = preview(content);
         return this;
     }
 
+    protected NoteDto toDto() {
+        return new NoteDto(getId(), created, modified, content, getVersion());
+    }
+
+    static String preview(String content) {
+        if (content.length() <= Constants.NOTE_PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Constants.NOTE_PREVIEW_LENGTH;
+        return content.substring(0, Character.isHighSurrogate(content.charAt(end - 1)) ? end - 1 : end);
+    }
+
     protected Note addTag(Tag tag) {
         this.tags.add(tag);
         return this;
@@ -0,0 +1,40 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.CompressionCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores note content compressed when {@code notes.content.compression.enabled} is set.
+ * Compressed and plain values are both read, so the setting can be changed for an existing table.
+ * The converter is created by Hibernate through the Spring bean container.
+ */
+@Converter
+public class NoteContentConverter implements AttributeConverter<String, String> {
+
+    private final CompressionCodec codec;
+
+    public NoteContentConverter() {
+        this.codec = new CompressionCodec();
+    }
+
+    @Autowired
+    public NoteContentConverter(@Value("${notes.content.compression.enabled:false}") boolean enabled,
+                                @Value("${notes.content.compression.min-length:256}") int minLength,
+                                @Value("${notes.content.compression.level:6}") int level) {
+        this.codec = enabled ? new CompressionCodec(minLength, level) : new CompressionCodec();
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String content) {
+        return codec.encode(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        return CompressionCodec.decode(value);
+    }
+
+}
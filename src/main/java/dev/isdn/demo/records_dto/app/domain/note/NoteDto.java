@@ -8,14 +8,16 @@ public record NoteDto(
     @JsonProperty("id") long id,
     @JsonProperty("created") long created,
     @JsonProperty("modified") long modified,
-    @JsonProperty("content") String content
+    @JsonProperty("content") String content,
+    @JsonProperty("version") long version
 ) {
     @JsonCreator
-    public NoteDto(long id, long created, long modified, String content) {
+    public NoteDto(long id, long created, long modified, String content, long version) {
         Objects.requireNonNull(content);
         this.id = id;
         this.created = created;
         this.modified = modified;
         this.content = content;
+        this.version = version;
     }
 }
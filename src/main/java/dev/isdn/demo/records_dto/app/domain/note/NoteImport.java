@@ -0,0 +1,23 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Progress of an import: totals of processed and created notes so far and IDs of the notes created by the last batch.
+ */
+public record NoteImport(
+    @JsonProperty("processed") long processed,
+    @JsonProperty("created") long created,
+    @JsonProperty("ids") List<Long> ids
+) {
+    @JsonCreator
+    public NoteImport(long processed, long created, List<Long> ids) {
+        Objects.requireNonNull(ids);
+        this.processed = processed;
+        this.created = created;
+        this.ids = ids;
+    }
+}
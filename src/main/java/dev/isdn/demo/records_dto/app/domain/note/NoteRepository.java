@@ -1,5 +1,7 @@
 package dev.isdn.demo.records_dto.app.domain.note;
 
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +9,8 @@ import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -28,15 +32,25 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content) FROM notes n WHERE n.id = :id")
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content, n.version) FROM notes n WHERE n.id = :id")
     Optional<NoteDto> findById(@Param("id") long id);
 
+    /**
+     * Reads the version column only, the content is not loaded.
+     */
+    @QueryHints(value = {
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT n.version FROM notes n WHERE n.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
     @QueryHints(value = {
             @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content) FROM notes n INNER JOIN n.tags t WHERE t.id = :tagId")
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content, n.version) FROM notes n INNER JOIN n.tags t WHERE t.id = :tagId")
     Stream<NoteDto> findAllByTagId(@Param("tagId") long tagId);
 
     @QueryHints(value = {
@@ -44,12 +58,110 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content) FROM notes n")
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content, n.version) FROM notes n")
     Stream<NoteDto> fetchAllNotes();
 
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content, n.version) FROM notes n " +
+            "WHERE n.modified >= :modified AND (n.modified > :modified OR n.id > :id) ORDER BY n.modified, n.id")
+    List<NoteDto> findPageAfter(@Param("modified") long modified, @Param("id") long id, Pageable page);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteDto(n.id, n.created, n.modified, n.content, n.version) FROM notes n WHERE n.id IN :ids ORDER BY n.id")
+    List<NoteDto> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteSummary(n.id, n.created, n.modified, n.contentLength, n.preview) FROM notes n INNER JOIN n.tags t WHERE t.id = :tagId")
+    Stream<NoteSummary> findSummariesByTagId(@Param("tagId") long tagId);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteSummary(n.id, n.created, n.modified, n.contentLength, n.preview) FROM notes n")
+    Stream<NoteSummary> fetchAllSummaries();
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteSummary(n.id, n.created, n.modified, n.contentLength, n.preview) FROM notes n " +
+            "WHERE n.modified >= :modified AND (n.modified > :modified OR n.id > :id) ORDER BY n.modified, n.id")
+    List<NoteSummary> findSummaryPageAfter(@Param("modified") long modified, @Param("id") long id, Pageable page);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteSummary(n.id, n.created, n.modified, n.contentLength, n.preview) FROM notes n WHERE n.id IN :ids ORDER BY n.id")
+    List<NoteSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT n.id FROM notes n")
+    Stream<Long> fetchAllIds();
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.note.NoteTag(n.id, t.id) FROM notes n INNER JOIN n.tags t")
+    Stream<NoteTag> fetchAllNoteTags();
+
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT nt.note_id FROM note_tag nt WHERE nt.tag_id = :tagId AND nt.note_id > :id ORDER BY nt.note_id", nativeQuery = true)
+    List<Long> findIdsByTagIdAfter(@Param("tagId") long tagId, @Param("id") long id, Pageable page);
+
+    /**
+     * Links an existing tag to an existing note unless they are linked already, all rows are found by primary keys.
+     * @return number of inserted rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO note_tag (note_id, tag_id) SELECT n.id, t.id FROM notes n, tags t " +
+            "WHERE n.id = :noteId AND t.id = :tagId " +
+            "AND NOT EXISTS (SELECT 1 FROM note_tag nt WHERE nt.note_id = :noteId AND nt.tag_id = :tagId)", nativeQuery = true)
+    int insertNoteTag(@Param("noteId") long noteId, @Param("tagId") long tagId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM note_tag WHERE note_id = :noteId AND tag_id = :tagId", nativeQuery = true)
+    int deleteNoteTag(@Param("noteId") long noteId, @Param("tagId") long tagId);
+
+    /**
+     * Updates the content with its length and preview, as {@link Note#setContent} does.
+     */
+    default int updateNoteContentById(long id, String content, long modified) {
+        return updateNoteContentById(id, content, content.length(), Note.preview(content), modified,
+                EntityVersionType.nextVersion());
+    }
+
+    /**
+     * Sets the version itself, {@code UPDATE VERSIONED} would increment it past the {@link EntityVersionType} counter.
+     */
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("UPDATE notes n SET n.content = :content, n.modified = :modified WHERE n.id = :id")
-    int updateNoteContentById(@Param("id") long id, @Param("content") String content, @Param("modified") long modified);
+    @Query("UPDATE notes n SET n.content = :content, n.contentLength = :contentLength, n.preview = :preview, " +
+            "n.modified = :modified, n.version = :version WHERE n.id = :id")
+    int updateNoteContentById(@Param("id") long id, @Param("content") String content,
+                              @Param("contentLength") int contentLength, @Param("preview") String preview,
+                              @Param("modified") long modified, @Param("version") long version);
 
     @QueryHints(value = {
             @QueryHint(name = READ_ONLY, value = "true")
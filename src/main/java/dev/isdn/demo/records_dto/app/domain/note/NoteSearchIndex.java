@@ -0,0 +1,435 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
+import dev.isdn.demo.records_dto.app.domain.common.LongIntMap;
+import dev.isdn.demo.records_dto.app.domain.common.Transactions;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index of note content, kept in memory and rebuilt from the DB at startup.
+ * Every indexed version of a note gets a dense document number. Posting lists hold document numbers in ascending
+ * order with term frequencies in primitive arrays, so a query intersects sorted arrays with galloping searches
+ * and keeps the best documents in a bounded heap.
+ * An update or a delete only marks the old document as dead, dead documents are dropped from the postings
+ * once they outnumber the live ones.
+ * Changes are applied after their transaction commits. Callbacks of concurrent transactions may run out of
+ * commit order, so every document keeps the entity version it was indexed from and a removed note keeps
+ * the version of its removal until the next compaction; a change older than those is ignored.
+ * Notes deleted past the services are evicted when a search does not find them in the DB.
+ * The notes are tokenized at startup outside of the lock and added in batches, so searches and changes
+ * go on meanwhile; the versions keep a concurrent change from being overwritten by the loaded note.
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final int TERM_LENGTH_MAX = 64;
+    private static final int COMPACT_MIN = 1024;
+    private static final int LOAD_BATCH_SIZE = 1024;
+    private static final double[] WEIGHTS = IntStream.range(0, 64).mapToDouble(Math::sqrt).toArray();
+
+    private final NoteRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final LongIntMap documents = new LongIntMap();
+    private final BitSet dead = new BitSet();
+    private final Map<Long, Long> removed = new HashMap<>();
+    private long[] ids = new long[1024];
+    private long[] versions = new long[1024];
+    private int[] lengths = new int[1024];
+    private int size = 0;
+    private int deadCount = 0;
+    private boolean loading = false;
+
+    public NoteSearchIndex(NoteRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Takes the write lock for a batch of tokenized notes at a time, removals of the load keep their versions
+     * until it ends, so a note deleted meanwhile is not brought back by its loaded copy.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        setLoading(true);
+        List<Document> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        try (Stream<NoteDto> notes = repository.fetchAllNotes()) {
+            notes.forEach(note -> {
+                batch.add(Document.of(note.id(), note.content(), note.version()));
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    putAll(batch);
+                    batch.clear();
+                }
+            });
+            putAll(batch);
+        } finally {
+            setLoading(false);
+        }
+    }
+
+    /**
+     * @return number of indexed notes
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds notes which contain all terms of the query, ranked by TF-IDF normalized by the note length.
+     * @return IDs of at most {@code limit} notes, the best match first
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    return List.of();
+                }
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+            return rank(lists, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param version the entity version of the content, the note is not changed if it is indexed from a newer one
+     */
+    public void putAfterCommit(long id, String content, long version) {
+        Transactions.afterCommit(() -> {
+            Document document = Document.of(id, content, version);
+            lock.writeLock().lock();
+            try {
+                put(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * @param version a version taken in the transaction after the note is deleted, newer than every write
+     *                committed before the delete, so their late callbacks do not bring the note back
+     */
+    public void removeAfterCommit(long id, long version) {
+        Transactions.afterCommit(() -> evict(List.of(id), version));
+    }
+
+    /**
+     * Removes notes that are known to be deleted.
+     */
+    void evict(Collection<Long> noteIds) {
+        evict(noteIds, EntityVersionType.nextVersion());
+    }
+
+    private void putAll(List<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        lock.writeLock().lock();
+        try {
+            this.loading = loading;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void evict(Collection<Long> noteIds, long version) {
+        if (noteIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            noteIds.forEach(id -> remove(id, version));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower case runs of letters and digits, runs longer than {@value #TERM_LENGTH_MAX} are skipped.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        text.codePoints().forEach(c -> {
+            if (Character.isLetterOrDigit(c)) {
+                token.appendCodePoint(Character.toLowerCase(c));
+            } else {
+                addToken(tokens, token);
+            }
+        });
+        addToken(tokens, token);
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder token) {
+        if (token.length() > 0 && token.length() <= TERM_LENGTH_MAX) {
+            tokens.add(token.toString());
+        }
+        token.setLength(0);
+    }
+
+    private List<Long> rank(List<Postings> lists, int limit) {
+        int live = Math.max(1, size - deadCount);
+        double[] idf = lists.stream().mapToDouble(p -> Math.log(1.0 + (double) live / p.size)).toArray();
+        int[] from = new int[lists.size()];
+        TopDocuments top = new TopDocuments(limit);
+        Postings first = lists.get(0);
+        candidates:
+        for (int i = 0; i < first.size; i++) {
+            int doc = first.docs[i];
+            if (dead.get(doc)) {
+                continue;
+            }
+            double score = weight(first.frequencies[i]) * idf[0];
+            for (int j = 1; j < lists.size(); j++) {
+                Postings postings = lists.get(j);
+                int k = postings.find(doc, from[j]);
+                if (k < 0) {
+                    from[j] = -k - 1;
+                    if (from[j] == postings.size) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                from[j] = k + 1;
+                score += weight(postings.frequencies[k]) * idf[j];
+            }
+            top.offer(doc, score / Math.sqrt(lengths[doc]));
+        }
+        int[] docs = top.sorted();
+        List<Long> ranked = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            ranked.add(ids[doc]);
+        }
+        return ranked;
+    }
+
+    private static double weight(int frequency) {
+        return frequency < WEIGHTS.length ? WEIGHTS[frequency] : Math.sqrt(frequency);
+    }
+
+    private void put(Document document) {
+        long id = document.id();
+        long version = document.version();
+        int indexed = documents.get(id);
+        if ((indexed >= 0 && versions[indexed] >= version) || removed.getOrDefault(id, Long.MIN_VALUE) >= version) {
+            return;
+        }
+        drop(id);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size << 1);
+            versions = Arrays.copyOf(versions, size << 1);
+            lengths = Arrays.copyOf(lengths, size << 1);
+        }
+        int doc = size++;
+        ids[doc] = id;
+        versions[doc] = version;
+        lengths[doc] = document.length();
+        documents.put(id, doc);
+        document.frequencies().forEach((term, frequency) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+    }
+
+    private void remove(long id, long version) {
+        drop(id);
+        removed.merge(id, version, Math::max);
+    }
+
+    private void drop(long id) {
+        int doc = documents.remove(id);
+        if (doc < 0) {
+            return;
+        }
+        dead.set(doc);
+        deadCount++;
+        if (deadCount > COMPACT_MIN && deadCount > size - deadCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the live documents in their order, so the postings stay sorted.
+     * Versions of the removed notes are dropped unless a load is running, late changes of deleted notes
+     * are left to the search eviction.
+     */
+    private void compact() {
+        int[] renumbered = new int[size];
+        int live = 0;
+        for (int doc = 0; doc < size; doc++) {
+            if (dead.get(doc)) {
+                renumbered[doc] = -1;
+                continue;
+            }
+            renumbered[doc] = live;
+            ids[live] = ids[doc];
+            versions[live] = versions[doc];
+            lengths[live] = lengths[doc];
+            documents.put(ids[live], live);
+            live++;
+        }
+        terms.values().removeIf(postings -> postings.compact(renumbered) == 0);
+        size = live;
+        deadCount = 0;
+        dead.clear();
+        if (! loading) {
+            removed.clear();
+        }
+    }
+
+    /**
+     * Best documents by score in a binary min-heap of primitives, the weakest document is at the root.
+     */
+    /**
+     * A note tokenized outside of the lock.
+     */
+    private record Document(long id, long version, int length, Map<String, Integer> frequencies) {
+
+        static Document of(long id, String content, long version) {
+            List<String> tokens = tokenize(content);
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokens.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            return new Document(id, version, Math.max(1, tokens.size()), frequencies);
+        }
+    }
+
+    private static final class TopDocuments {
+
+        private final int[] docs;
+        private final double[] scores;
+        private int size = 0;
+
+        private TopDocuments(int limit) {
+            this.docs = new int[limit];
+            this.scores = new double[limit];
+        }
+
+        private void offer(int doc, double score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                up(size++);
+            } else if (score > scores[0]) {
+                docs[0] = doc;
+                scores[0] = score;
+                down(0, size);
+            }
+        }
+
+        /**
+         * @return the documents, the best first; the heap is consumed
+         */
+        private int[] sorted() {
+            for (int last = size - 1; last > 0; last--) {
+                swap(0, last);
+                down(0, last);
+            }
+            return Arrays.copyOf(docs, size);
+        }
+
+        private void up(int i) {
+            while (i > 0 && scores[(i - 1) >>> 1] > scores[i]) {
+                swap(i, (i - 1) >>> 1);
+                i = (i - 1) >>> 1;
+            }
+        }
+
+        private void down(int i, int end) {
+            for (int child = 2 * i + 1; child < end; i = child, child = 2 * i + 1) {
+                if (child + 1 < end && scores[child + 1] < scores[child]) {
+                    child++;
+                }
+                if (scores[i] <= scores[child]) {
+                    return;
+                }
+                swap(i, child);
+            }
+        }
+
+        private void swap(int i, int j) {
+            int doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int[] frequencies = new int[4];
+        private int size = 0;
+
+        private void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size << 1);
+                frequencies = Arrays.copyOf(frequencies, size << 1);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * Gallops from {@code from} and then searches binary, so dense and sparse lists are both cheap to intersect.
+         * @return index of the document, or {@code -(insertion point) - 1}
+         */
+        private int find(int doc, int from) {
+            int step = 1;
+            int to = from;
+            while (to < size && docs[to] < doc) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            return Arrays.binarySearch(docs, from, Math.min(to + 1, size), doc);
+        }
+
+        private int compact(int[] renumbered) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[live] = doc;
+                    frequencies[live] = frequencies[i];
+                    live++;
+                }
+            }
+            size = live;
+            return size;
+        }
+    }
+
+}
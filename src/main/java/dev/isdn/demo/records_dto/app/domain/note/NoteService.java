@@ -1,12 +1,34 @@
 package dev.isdn.demo.records_dto.app.domain.note;
 
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
 import dev.isdn.demo.records_dto.app.domain.common.Functions;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.common.StreamPublisher;
+import dev.isdn.demo.records_dto.app.domain.tag.NoteTagDto;
 import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
 import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import reactor.core.publisher.Flux;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class NoteService {
@@ -15,9 +37,37 @@ public class NoteService {
 
     final private TagRepository tagRepository;
 
-    public NoteService(NoteRepository repository, TagRepository tagRepository) {
+    final private StreamPublisher streamPublisher;
+
+    final private EntityManager entityManager;
+
+    final private NoteSearchIndex searchIndex;
+
+    final private NoteTagIndex tagIndex;
+
+    final private ChangeFeed changeFeed;
+
+    final private NoteTombstoneRepository tombstoneRepository;
+
+    final private long watermarkLag;
+
+    final private long tombstoneRetention;
+
+    public NoteService(NoteRepository repository, TagRepository tagRepository, StreamPublisher streamPublisher,
+                       EntityManager entityManager, NoteSearchIndex searchIndex, NoteTagIndex tagIndex,
+                       ChangeFeed changeFeed, NoteTombstoneRepository tombstoneRepository,
+                       @Value("${notes.sync.watermark-lag:5s}") Duration watermarkLag,
+                       @Value("${notes.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
         this.repository = repository;
         this.tagRepository = tagRepository;
+        this.streamPublisher = streamPublisher;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.tagIndex = tagIndex;
+        this.changeFeed = changeFeed;
+        this.tombstoneRepository = tombstoneRepository;
+        this.watermarkLag = watermarkLag.toSeconds();
+        this.tombstoneRetention = tombstoneRetention.toSeconds();
     }
 
     @Transactional
@@ -26,7 +76,10 @@ public class NoteService {
         return Optional.ofNullable(content)
                 .map(note::setContent)
                 .map(repository::saveAndFlush)
-                .flatMap(n -> repository.findById(n.getId()));
+                .map(this::index)
+                .map(this::indexTags)
+                .map(n -> published(n, Change.Type.NOTE_CREATED))
+                .map(Note::toDto);
     }
 
     @Transactional
@@ -34,6 +87,34 @@ public class NoteService {
         return createNote(content.content());
     }
 
+    /**
+     * Creates notes in one transaction, skipping contents without text.
+     * The notes are inserted in JDBC batches and detached afterwards, so the persistence context
+     * does not grow when batches are imported one after another.
+     * @return IDs of the created notes
+     */
+    @Transactional
+    public List<Long> createNotes(List<NoteContent> contents) {
+        List<Note> notes = new ArrayList<>(contents.size());
+        contents.stream()
+                .filter(Objects::nonNull)
+                .map(NoteContent::content)
+                .filter(Objects::nonNull)
+                .map(content -> new Note().setContent(content))
+                .forEach(note -> {
+                    entityManager.persist(note);
+                    index(note);
+                    indexTags(note);
+                    notes.add(note);
+                });
+        entityManager.flush();
+        entityManager.clear();
+        return notes.stream()
+                .map(note -> published(note, Change.Type.NOTE_CREATED))
+                .map(Note::getId)
+                .toList();
+    }
+
     @Transactional
     public Optional<NoteDto> updateNoteContent(NoteDto note, String content) {
         return Functions.checkNoteDto.apply(note)
@@ -43,7 +124,9 @@ public class NoteService {
                                 .map(n::setContent)
                                 .map(repository::saveAndFlush)
                 )
-                .flatMap(n -> repository.findById(n.getId()));
+                .map(this::index)
+                .map(n -> published(n, Change.Type.NOTE_UPDATED))
+                .map(Note::toDto);
     }
 
     @Transactional
@@ -51,10 +134,35 @@ public class NoteService {
         return updateNoteContent(note, content.content());
     }
 
+    /**
+     * @return {@code Result.Done} with the updated {@link NoteDto}, {@code Result.NoSuchElement}
+     * or {@code Result.Error} if the content is not valid
+     */
+    @Transactional
+    public Result updateNoteContentById(long noteId, NoteContent content) {
+        return repository.getNoteById(noteId)
+                .map(n -> Optional.ofNullable(content)
+                        .map(NoteContent::content)
+                        .map(n::setContent)
+                        .map(repository::saveAndFlush)
+                        .map(this::index)
+                        .map(note -> published(note, Change.Type.NOTE_UPDATED))
+                        .<Result>map(note -> new Result.Done(note.toDto()))
+                        .orElseGet(Result.Error::new))
+                .orElse(Result.NoSuchElement.note(noteId));
+    }
+
     public Optional<NoteDto> getNoteById(long noteId) {
         return repository.findById(noteId);
     }
 
+    /**
+     * @return the version of the note, the content is not read
+     */
+    public Optional<Long> getNoteVersion(long noteId) {
+        return repository.findVersionById(noteId);
+    }
+
     @Transactional(readOnly = true)
     public List<NoteDto> getTagNotes(TagDto tag) {
         return Functions.checkTagDto.apply(tag)
@@ -62,6 +170,33 @@ public class NoteService {
                 .orElse(Collections.emptyList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> getTagNotesPage(TagDto tag, Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return Functions.checkTagDto.apply(tag)
+                .map(t -> repository.findIdsByTagIdAfter(t.id(), after.id(), PageRequest.ofSize(size + 1)))
+                .map(ids -> ids.isEmpty() ? List.<NoteDto>of() : repository.findAllByIdIn(ids))
+                .map(notes -> CursorPage.of(notes, size, n -> Cursor.afterId(n.id())))
+                .orElse(new CursorPage<>(Collections.emptyList(), null));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NoteSummary> getTagNoteSummaries(TagDto tag) {
+        return Functions.checkTagDto.apply(tag)
+                .map(t -> repository.findSummariesByTagId(t.id()).toList())
+                .orElse(Collections.emptyList());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NoteSummary> getTagNoteSummariesPage(TagDto tag, Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return Functions.checkTagDto.apply(tag)
+                .map(t -> repository.findIdsByTagIdAfter(t.id(), after.id(), PageRequest.ofSize(size + 1)))
+                .map(ids -> ids.isEmpty() ? List.<NoteSummary>of() : repository.findSummariesByIdIn(ids))
+                .map(notes -> CursorPage.of(notes, size, n -> Cursor.afterId(n.id())))
+                .orElse(new CursorPage<>(Collections.emptyList(), null));
+    }
+
     @Transactional(readOnly = true)
     public long getTagNotesCount(long tagId) {
         return repository.countAllByTagId(tagId);
@@ -72,6 +207,151 @@ public class NoteService {
         return repository.fetchAllNotes().toList();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<NoteDto> getNotesPage(Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return CursorPage.of(
+                repository.findPageAfter(after.key(), after.id(), PageRequest.ofSize(size + 1)),
+                size,
+                n -> new Cursor(n.modified(), n.id())
+        );
+    }
+
+    /**
+     * Reads a page of the notes modified and the notes deleted since the watermark, merged in one keyset
+     * of {@code (modified, id)} and {@code (deleted, note_id)}, so a page has at most {@code limit} of both together.
+     * A note changed or deleted during the sync sorts after the pages read already, so a later page has it.
+     * The next watermark lags behind the time of the read by {@code notes.sync.watermark-lag}: a note is stamped
+     * before its transaction commits, so the next sync sends again the notes of the lag rather than miss one.
+     * A watermark of 0 is a first sync, which has no deletions to report.
+     * @return the page, or empty if the watermark is older than the tombstones kept
+     */
+    @Transactional(readOnly = true)
+    public Optional<NoteSyncPage> getNotesModifiedSince(long modifiedSince, Cursor after, int limit) {
+        long now = Instant.now().getEpochSecond();
+        if (modifiedSince > 0 && modifiedSince < now - tombstoneRetention) {
+            return Optional.empty();
+        }
+        long since = Math.max(modifiedSince, 0);
+        Cursor from = after.key() < since ? new Cursor(since, Long.MIN_VALUE) : after;
+        int size = Functions.checkPageLimit.apply(limit);
+        List<NoteDto> notes = repository.findPageAfter(from.key(), from.id(), PageRequest.ofSize(size + 1));
+        List<NoteTombstone> tombstones = since > 0 ?
+                tombstoneRepository.findPageAfter(from.key(), from.id(), PageRequest.ofSize(size + 1)) : List.of();
+        List<NoteDto> items = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        Cursor last = from;
+        int i = 0;
+        int j = 0;
+        while (i + j < size && (i < notes.size() || j < tombstones.size())) {
+            Cursor note = i < notes.size() ? new Cursor(notes.get(i).modified(), notes.get(i).id()) : null;
+            Cursor tombstone = j < tombstones.size() ?
+                    new Cursor(tombstones.get(j).getDeleted(), tombstones.get(j).getNoteId()) : null;
+            if (tombstone == null || (note != null && Cursor.ORDER.compare(note, tombstone) < 0)) {
+                items.add(notes.get(i++));
+                last = note;
+            } else {
+                deleted.add(tombstones.get(j++).getNoteId());
+                last = tombstone;
+            }
+        }
+        if (i < notes.size() || j < tombstones.size()) {
+            return Optional.of(new NoteSyncPage(items, deleted, last.encode(), null));
+        }
+        return Optional.of(new NoteSyncPage(items, deleted, null, Math.max(since, now - watermarkLag)));
+    }
+
+    /**
+     * Deletes the tombstones older than {@code notes.sync.tombstone-retention}.
+     * @return number of deleted tombstones
+     */
+    @Scheduled(fixedDelayString = "${notes.sync.purge-interval:PT1H}")
+    @Transactional
+    public int purgeTombstones() {
+        return tombstoneRepository.deleteAllDeletedBefore(Instant.now().getEpochSecond() - tombstoneRetention);
+    }
+
+    /**
+     * Reads the notes and the tags of all notes, two queries in total.
+     */
+    @Transactional(readOnly = true)
+    public List<NoteWithTags> getAllNotesWithTags() {
+        Map<Long, List<TagDto>> tags = tagsByNote(tagRepository.fetchAllNoteTags());
+        return repository.fetchAllNotes()
+                .map(n -> NoteWithTags.of(n, tags.getOrDefault(n.id(), List.of())))
+                .toList();
+    }
+
+    /**
+     * Reads a page of notes and the tags of the page, two queries per page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<NoteWithTags> getNotesWithTagsPage(Cursor after, int limit) {
+        CursorPage<NoteDto> page = getNotesPage(after, limit);
+        if (page.items().isEmpty()) {
+            return page.map(n -> NoteWithTags.of(n, List.of()));
+        }
+        Map<Long, List<TagDto>> tags = tagsByNote(
+                tagRepository.findAllByNoteIdIn(page.items().stream().map(NoteDto::id).toList()).stream());
+        return page.map(n -> NoteWithTags.of(n, tags.getOrDefault(n.id(), List.of())));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NoteSummary> getAllNoteSummaries() {
+        return repository.fetchAllSummaries().toList();
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NoteSummary> getNoteSummariesPage(Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return CursorPage.of(
+                repository.findSummaryPageAfter(after.key(), after.id(), PageRequest.ofSize(size + 1)),
+                size,
+                n -> new Cursor(n.modified(), n.id())
+        );
+    }
+
+    /**
+     * Finds notes which contain all words of the query with {@link NoteSearchIndex}.
+     * @return at most {@code limit} notes, the best match first
+     */
+    @Transactional(readOnly = true)
+    public List<NoteDto> searchNotes(String query, int limit) {
+        return ranked(searchIndex.search(query, Functions.checkPageLimit.apply(limit)),
+                repository::findAllByIdIn, NoteDto::id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<NoteSummary> searchNoteSummaries(String query, int limit) {
+        return ranked(searchIndex.search(query, Functions.checkPageLimit.apply(limit)),
+                repository::findSummariesByIdIn, NoteSummary::id);
+    }
+
+    /**
+     * Finds notes whose tags match the expression with {@link NoteTagIndex}.
+     * @return a page of note IDs in the order of the index
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Long> queryNoteIds(TagExpression expression, Cursor after, int limit) {
+        return matching(expression, after, Functions.checkPageLimit.apply(limit),
+                repository::findSummariesByIdIn, NoteSummary::id)
+                .map(NoteSummary::id);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<NoteSummary> queryNoteSummaries(TagExpression expression, Cursor after, int limit) {
+        return matching(expression, after, Functions.checkPageLimit.apply(limit),
+                repository::findSummariesByIdIn, NoteSummary::id);
+    }
+
+    public Flux<NoteDto> streamAllNotes() {
+        return streamPublisher.publish(repository::fetchAllNotes);
+    }
+
+    public Flux<NoteSummary> streamAllNoteSummaries() {
+        return streamPublisher.publish(repository::fetchAllSummaries);
+    }
+
     @Transactional
     public Result deleteNote(NoteDto note) {
         return Functions.checkNoteDto.apply(note)
@@ -84,37 +364,176 @@ public class NoteService {
         if (repository.existsById(noteId)) {
             repository.deleteById(noteId);
             repository.flush();
+            tombstoneRepository.mergeTombstone(noteId, Instant.now().getEpochSecond());
+            // newer than every write committed before the delete, the version of the deleted note
+            long version = EntityVersionType.nextVersion();
+            searchIndex.removeAfterCommit(noteId, version);
+            tagIndex.removeNoteAfterCommit(noteId, version);
+            changeFeed.publishAfterCommit(Change.Type.NOTE_DELETED, noteId, version);
             return new Result.Ok();
         }
-        return new Result.NoSuchElement(noteId);
+        return Result.NoSuchElement.note(noteId);
     }
 
+    /**
+     * Links a tag to a note with a single insert into the join table, tags of the note are not loaded.
+     * @return the note, or empty if the tag is linked already or the note or the tag does not exist
+     */
     @Transactional
     public Optional<NoteDto> addTagToNote(NoteDto note, TagDto tag) {
         return Functions.checkNoteDto.apply(note)
-                .flatMap(n -> repository.getNoteById(n.id()))
                 .flatMap(n ->
                         Functions.checkTagDto.apply(tag)
-                                .flatMap(t -> tagRepository.getTagById(t.id()))
-                                .filter(t -> ! n.getTags().contains(t))
-                                .map(n::addTag)
-                                .map(repository::saveAndFlush)
-                )
-                .flatMap(n -> repository.findById(n.getId()));
+                                .filter(t -> updateNoteTag(() -> repository.insertNoteTag(n.id(), t.id()),
+                                        () -> noteTagUpdated(Change.Type.TAG_ATTACHED, n.id(), t.id(), committedVersion(n.id()))))
+                                .map(t -> n)
+                );
     }
 
+    /**
+     * Unlinks a tag from a note with a single delete from the join table, tags of the note are not loaded.
+     * @return the note, or empty if the tag is not linked to the note
+     */
     @Transactional
     public Optional<NoteDto> deleteTagFromNote(NoteDto note, TagDto tag) {
         return Functions.checkNoteDto.apply(note)
-                .flatMap(n -> repository.getNoteById(n.id()))
                 .flatMap(n ->
                         Functions.checkTagDto.apply(tag)
-                                .flatMap(t -> tagRepository.getTagById(t.id()))
-                                .filter(t -> n.getTags().contains(t))
-                                .map(n::deleteTag)
-                                .map(repository::saveAndFlush)
-                )
-                .flatMap(n -> repository.findById(n.getId()));
+                                .filter(t -> updateNoteTag(() -> repository.deleteNoteTag(n.id(), t.id()),
+                                        () -> noteTagUpdated(Change.Type.TAG_DETACHED, n.id(), t.id(), committedVersion(n.id()))))
+                                .map(t -> n)
+                );
+    }
+
+    /**
+     * @return {@code Result.Done} with the {@link NoteDto}, {@code Result.NoSuchElement} with the ID of a missing
+     * note or tag, or {@code Result.Error} if the tag is linked already
+     */
+    @Transactional
+    public Result addTagToNoteById(long noteId, long tagId) {
+        return updateNoteTagById(noteId, tagId, () -> repository.insertNoteTag(noteId, tagId), Change.Type.TAG_ATTACHED);
+    }
+
+    /**
+     * @return {@code Result.Done} with the {@link NoteDto}, {@code Result.NoSuchElement} with the ID of a missing
+     * note or tag, or {@code Result.Error} if the tag is not linked
+     */
+    @Transactional
+    public Result deleteTagFromNoteById(long noteId, long tagId) {
+        return updateNoteTagById(noteId, tagId, () -> repository.deleteNoteTag(noteId, tagId), Change.Type.TAG_DETACHED);
+    }
+
+    private Result updateNoteTagById(long noteId, long tagId, IntSupplier update, Change.Type type) {
+        Optional<NoteDto> note = repository.findById(noteId);
+        if (note.isEmpty()) {
+            return Result.NoSuchElement.note(noteId);
+        }
+        if (updateNoteTag(update, () -> noteTagUpdated(type, noteId, tagId, note.get().version()))) {
+            return new Result.Done(note.get());
+        }
+        return tagRepository.existsById(tagId) ? new Result.Error() : Result.NoSuchElement.tag(tagId);
+    }
+
+    private Note index(Note note) {
+        searchIndex.putAfterCommit(note.getId(), note.getContent(), note.getVersion());
+        return note;
+    }
+
+    private static Map<Long, List<TagDto>> tagsByNote(Stream<NoteTagDto> links) {
+        try (links) {
+            return links.collect(Collectors.groupingBy(NoteTagDto::noteId,
+                    Collectors.mapping(NoteTagDto::tag, Collectors.toList())));
+        }
+    }
+
+    private Note indexTags(Note note) {
+        tagIndex.addNoteAfterCommit(note.getId(), note.getVersion());
+        return note;
+    }
+
+    private Note published(Note note, Change.Type type) {
+        changeFeed.publishAfterCommit(type, note.getId(), note.getVersion());
+        return note;
+    }
+
+    /**
+     * @param noteVersion the version of the note read in the transaction, published with the change
+     */
+    private void noteTagUpdated(Change.Type type, long noteId, long tagId, long noteVersion) {
+        // taken after the link is written, so the changes of a link are versioned in their commit order
+        long version = EntityVersionType.nextVersion();
+        if (type == Change.Type.TAG_ATTACHED) {
+            tagIndex.linkAfterCommit(noteId, tagId, version);
+        } else {
+            tagIndex.unlinkAfterCommit(noteId, tagId, version);
+        }
+        changeFeed.publishAfterCommit(type, noteId, tagId, noteVersion);
+    }
+
+    /**
+     * The version of a {@link NoteDto} comes from the caller, the published one is read after the link is written.
+     */
+    private long committedVersion(long noteId) {
+        // the written link references the note, so the note cannot be deleted before the transaction ends
+        return repository.findVersionById(noteId).orElseThrow();
+    }
+
+    /**
+     * Reads notes in the order of the IDs, the IDs of the notes which are gone are evicted from the index.
+     */
+    private <T> List<T> ranked(List<Long> ids, Function<Collection<Long>, List<T>> query, ToLongFunction<T> id) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> found = new HashMap<>();
+        query.apply(ids).forEach(item -> found.put(id.applyAsLong(item), item));
+        searchIndex.evict(ids.stream().filter(Predicate.not(found::containsKey)).toList());
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Reads a page of the notes which match the expression. The notes which are gone are evicted
+     * from the index and the page is read again.
+     */
+    private <T> CursorPage<T> matching(TagExpression expression, Cursor after, int limit,
+                                       Function<Collection<Long>, List<T>> query, ToLongFunction<T> id) {
+        // the cursor holds the ordinal of the last note of the page
+        int from = (int) Math.max(0, Math.min(after.id(), Integer.MAX_VALUE - 1) + 1);
+        while (true) {
+            List<NoteTagIndex.Match> matches = tagIndex.query(expression, from, limit + 1);
+            if (matches.isEmpty()) {
+                return new CursorPage<>(List.of(), null);
+            }
+            Map<Long, T> found = new HashMap<>();
+            query.apply(matches.stream().map(NoteTagIndex.Match::id).toList())
+                    .forEach(item -> found.put(id.applyAsLong(item), item));
+            List<Long> missing = matches.stream()
+                    .map(NoteTagIndex.Match::id)
+                    .filter(Predicate.not(found::containsKey))
+                    .toList();
+            if (missing.isEmpty()) {
+                return CursorPage.of(matches, limit, m -> Cursor.afterId(m.ordinal()))
+                        .map(m -> found.get(m.id()));
+            }
+            tagIndex.evict(missing);
+        }
+    }
+
+    private boolean updateNoteTag(IntSupplier update, Runnable updated) {
+        try {
+            if (update.getAsInt() > 0) {
+                updated.run();
+                return true;
+            }
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            // the note or the tag was deleted, or the same pair was linked concurrently
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+/**
+ * A note without its content: the content length and the first characters of the content.
+ */
+public record NoteSummary(
+    @JsonProperty("id") long id,
+    @JsonProperty("created") long created,
+    @JsonProperty("modified") long modified,
+    @JsonProperty("length") int length,
+    @JsonProperty("preview") String preview
+) {
+    @JsonCreator
+    public NoteSummary(long id, long created, long modified, int length, String preview) {
+        Objects.requireNonNull(preview);
+        this.id = id;
+        this.created = created;
+        this.modified = modified;
+        this.length = length;
+        this.preview = preview;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A page of the notes modified and the IDs of the notes deleted since a watermark, in the order of the time
+ * of the change and the note ID. The last page ({@code next} is null) has the {@code watermark} of the next sync.
+ */
+public record NoteSyncPage(
+    @JsonProperty("items") List<NoteDto> items,
+    @JsonProperty("deleted") List<Long> deleted,
+    @JsonProperty("next") String next,
+    @JsonProperty("watermark") Long watermark
+) {
+    @JsonCreator
+    public NoteSyncPage(List<NoteDto> items, List<Long> deleted, String next, Long watermark) {
+        Objects.requireNonNull(items);
+        Objects.requireNonNull(deleted);
+        this.items = items;
+        this.deleted = deleted;
+        this.next = next;
+        this.watermark = watermark;
+    }
+}
@@ -0,0 +1,6 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+/**
+ * A row of the {@code note_tag} join table.
+ */
+public record NoteTag(long noteId, long tagId) {}
@@ -0,0 +1,289 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
+import dev.isdn.demo.records_dto.app.domain.common.LongIntMap;
+import dev.isdn.demo.records_dto.app.domain.common.Transactions;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Notes of every tag as compressed bitmaps, kept in memory and rebuilt from the DB at startup.
+ * Every note gets a dense ordinal in the order it is added, a {@link TagExpression} is evaluated by
+ * intersections, unions and differences of the bitmaps and the matches are paged by ordinal.
+ * Ordinals are not reused: a deleted note is only cleared from the bitmap of all notes, the tag bitmaps
+ * are cleared once the deleted notes outnumber the live ones.
+ * Changes are applied after their transaction commits. Callbacks of concurrent transactions may run out of
+ * commit order, so every changed link keeps the version of its latest applied change and a change older than that,
+ * or older than the removal of its note or tag, is ignored. Changes of one link are serialized by the DB, so their
+ * versions follow their commit order. Link versions are kept while the note and the tag are,
+ * removals until the next compaction. Notes deleted past the services are evicted when a query does not find
+ * them in the DB.
+ */
+@Component
+public class NoteTagIndex {
+
+    private static final int COMPACT_MIN = 1024;
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    public record Match(int ordinal, long id) {}
+
+    private final NoteRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Long> removedNotes = new HashMap<>();
+    private final Map<Long, Long> removedTags = new HashMap<>();
+    private final Map<Long, Map<Long, Long>> linkVersions = new HashMap<>();
+    private Bitmaps bitmaps = new Bitmaps();
+    private List<Runnable> replayed = null;
+
+    public NoteTagIndex(NoteRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Reads the notes and their tags without the lock, so queries are answered from the current bitmaps meanwhile,
+     * and swaps the loaded bitmaps in. Changes applied during the reads are applied again to the loaded bitmaps,
+     * the link versions are kept, so a replayed change is not overwritten by an older one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        write(() -> replayed = new ArrayList<>());
+        try {
+            Bitmaps loaded = read();
+            write(() -> {
+                bitmaps = loaded;
+                replayed.forEach(Runnable::run);
+            });
+        } finally {
+            write(() -> replayed = null);
+        }
+    }
+
+    /**
+     * @return number of indexed notes
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.notes.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return at most {@code count} notes which match the expression, in the order of ordinals starting from {@code from}
+     */
+    public List<Match> query(TagExpression expression, int from, int count) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = RoaringBitmap.and(evaluate(expression), bitmaps.notes);
+            List<Match> page = new ArrayList<>(Math.min(count, matches.getCardinality()));
+            PeekableIntIterator iterator = matches.getIntIterator();
+            iterator.advanceIfNeeded(from);
+            while (iterator.hasNext() && page.size() < count) {
+                int ordinal = iterator.next();
+                page.add(new Match(ordinal, bitmaps.ids[ordinal]));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param version the version of the created note
+     */
+    public void addNoteAfterCommit(long noteId, long version) {
+        Transactions.afterCommit(() -> change(() -> {
+            if (! isRemoved(removedNotes, noteId, version)) {
+                bitmaps.ordinal(noteId);
+            }
+        }));
+    }
+
+    /**
+     * @param version a version taken in the transaction after the link is written, see {@link EntityVersionType}
+     */
+    public void linkAfterCommit(long noteId, long tagId, long version) {
+        Transactions.afterCommit(() -> change(() -> setLink(noteId, tagId, true, version)));
+    }
+
+    /**
+     * @param version a version taken in the transaction after the link is deleted, see {@link EntityVersionType}
+     */
+    public void unlinkAfterCommit(long noteId, long tagId, long version) {
+        Transactions.afterCommit(() -> change(() -> setLink(noteId, tagId, false, version)));
+    }
+
+    /**
+     * @param version a version taken in the transaction after the note is deleted, see {@link EntityVersionType}
+     */
+    public void removeNoteAfterCommit(long noteId, long version) {
+        Transactions.afterCommit(() -> evict(List.of(noteId), version));
+    }
+
+    /**
+     * @param version a version taken in the transaction after the tag is deleted, see {@link EntityVersionType}
+     */
+    public void removeTagAfterCommit(long tagId, long version) {
+        Transactions.afterCommit(() -> change(() -> {
+            bitmaps.tags.remove(tagId);
+            removedTags.merge(tagId, version, Math::max);
+            linkVersions.values().removeIf(versions -> versions.remove(tagId) != null && versions.isEmpty());
+        }));
+    }
+
+    /**
+     * Removes notes that are known to be deleted.
+     */
+    void evict(Collection<Long> noteIds) {
+        evict(noteIds, EntityVersionType.nextVersion());
+    }
+
+    private void evict(Collection<Long> noteIds, long version) {
+        if (noteIds.isEmpty()) {
+            return;
+        }
+        change(() -> noteIds.forEach(noteId -> {
+            if (bitmaps.remove(noteId)) {
+                removedNotes.clear();
+                removedTags.clear();
+            }
+            removedNotes.merge(noteId, version, Math::max);
+            linkVersions.remove(noteId);
+        }));
+    }
+
+    private Bitmaps read() {
+        Bitmaps loaded = new Bitmaps();
+        try (Stream<Long> noteIds = repository.fetchAllIds(); Stream<NoteTag> links = repository.fetchAllNoteTags()) {
+            noteIds.forEach(loaded::ordinal);
+            links.forEach(link -> loaded.set(loaded.ordinal(link.noteId()), link.tagId(), true));
+        }
+        loaded.notes.runOptimize();
+        loaded.tags.values().forEach(RoaringBitmap::runOptimize);
+        return loaded;
+    }
+
+    /**
+     * The note exists when its link change is committed, so an unknown note is added.
+     * A change of the same version is the change itself replayed on the loaded bitmaps, so it is applied again.
+     */
+    private void setLink(long noteId, long tagId, boolean linked, long version) {
+        if (isRemoved(removedNotes, noteId, version) || isRemoved(removedTags, tagId, version)) {
+            return;
+        }
+        Map<Long, Long> versions = linkVersions.computeIfAbsent(noteId, n -> new HashMap<>(4));
+        if (versions.getOrDefault(tagId, Long.MIN_VALUE) > version) {
+            return;
+        }
+        versions.put(tagId, version);
+        bitmaps.set(bitmaps.ordinal(noteId), tagId, linked);
+    }
+
+    private static boolean isRemoved(Map<Long, Long> removed, long id, long version) {
+        return removed.getOrDefault(id, Long.MIN_VALUE) >= version;
+    }
+
+    private RoaringBitmap evaluate(TagExpression expression) {
+        // the bitmaps of the index are shared, so the operations always build new bitmaps
+        return switch (expression) {
+            case TagExpression.Tag tag -> bitmaps.tags.getOrDefault(tag.id(), EMPTY);
+            case TagExpression.Not not -> RoaringBitmap.andNot(bitmaps.notes, evaluate(not.operand()));
+            case TagExpression.And and && and.right() instanceof TagExpression.Not ->
+                    RoaringBitmap.andNot(evaluate(and.left()), evaluate(((TagExpression.Not) and.right()).operand()));
+            case TagExpression.And and && and.left() instanceof TagExpression.Not ->
+                    RoaringBitmap.andNot(evaluate(and.right()), evaluate(((TagExpression.Not) and.left()).operand()));
+            case TagExpression.And and -> RoaringBitmap.and(evaluate(and.left()), evaluate(and.right()));
+            case TagExpression.Or or -> RoaringBitmap.or(evaluate(or.left()), evaluate(or.right()));
+        };
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the change, and again to the loaded bitmaps if the index is being loaded.
+     */
+    private void change(Runnable action) {
+        write(() -> {
+            action.run();
+            if (replayed != null) {
+                replayed.add(action);
+            }
+        });
+    }
+
+    private static final class Bitmaps {
+
+        private final LongIntMap ordinals = new LongIntMap();
+        private final RoaringBitmap notes = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> tags = new HashMap<>();
+        private long[] ids = new long[1024];
+        private int size = 0;
+        private int removed = 0;
+
+        private int ordinal(long noteId) {
+            int ordinal = ordinals.get(noteId);
+            if (ordinal >= 0) {
+                return ordinal;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+            }
+            ordinal = size++;
+            ids[ordinal] = noteId;
+            ordinals.put(noteId, ordinal);
+            notes.add(ordinal);
+            return ordinal;
+        }
+
+        private void set(int ordinal, long tagId, boolean linked) {
+            if (linked) {
+                tags.computeIfAbsent(tagId, t -> new RoaringBitmap()).add(ordinal);
+            } else {
+                RoaringBitmap tagged = tags.get(tagId);
+                if (tagged != null) {
+                    tagged.remove(ordinal);
+                }
+            }
+        }
+
+        /**
+         * @return true if the tag bitmaps were compacted
+         */
+        private boolean remove(long noteId) {
+            int ordinal = ordinals.remove(noteId);
+            if (ordinal < 0) {
+                return false;
+            }
+            notes.remove(ordinal);
+            removed++;
+            if (removed > COMPACT_MIN && removed > notes.getCardinality()) {
+                tags.values().removeIf(tagged -> {
+                    tagged.and(notes);
+                    return tagged.isEmpty();
+                });
+                removed = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
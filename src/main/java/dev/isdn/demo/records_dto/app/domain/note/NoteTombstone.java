@@ -0,0 +1,36 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import javax.persistence.*;
+
+/**
+ * The ID of a deleted note and the time of the deletion (epoch seconds), kept for
+ * {@code notes.sync.tombstone-retention} to report deletions to sync clients.
+ */
+@Entity(name = "note_tombstones")
+@Table(name = "note_tombstones", indexes = @Index(name = "note_tombstones_deleted_note_id", columnList = "deleted, note_id"))
+public class NoteTombstone {
+
+    @Id
+    @Column(name = "note_id", nullable = false)
+    private long noteId;
+
+    @Column(nullable = false)
+    private long deleted;
+
+    protected NoteTombstone() {
+    }
+
+    protected NoteTombstone(long noteId, long deleted) {
+        this.noteId = noteId;
+        this.deleted = deleted;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+}
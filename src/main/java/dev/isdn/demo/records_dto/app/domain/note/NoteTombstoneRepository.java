@@ -0,0 +1,39 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Transactional
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    /**
+     * Inserts the tombstone, or moves the time of an existing one, without reading it first.
+     */
+    @Modifying
+    @Query(value = "MERGE INTO note_tombstones (note_id, deleted) KEY (note_id) VALUES (:noteId, :deleted)", nativeQuery = true)
+    int mergeTombstone(@Param("noteId") long noteId, @Param("deleted") long deleted);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT t FROM note_tombstones t " +
+            "WHERE t.deleted >= :deleted AND (t.deleted > :deleted OR t.noteId > :noteId) ORDER BY t.deleted, t.noteId")
+    List<NoteTombstone> findPageAfter(@Param("deleted") long deleted, @Param("noteId") long noteId, Pageable page);
+
+    @Modifying
+    @Query(value = "DELETE FROM note_tombstones t WHERE t.deleted < :deleted")
+    int deleteAllDeletedBefore(@Param("deleted") long deleted);
+
+}
@@ -0,0 +1,35 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A note with its tags embedded.
+ */
+public record NoteWithTags(
+    @JsonProperty("id") long id,
+    @JsonProperty("created") long created,
+    @JsonProperty("modified") long modified,
+    @JsonProperty("content") String content,
+    @JsonProperty("version") long version,
+    @JsonProperty("tags") List<TagDto> tags
+) {
+    @JsonCreator
+    public NoteWithTags(long id, long created, long modified, String content, long version, List<TagDto> tags) {
+        Objects.requireNonNull(content);
+        Objects.requireNonNull(tags);
+        this.id = id;
+        this.created = created;
+        this.modified = modified;
+        this.content = content;
+        this.version = version;
+        this.tags = tags;
+    }
+
+    public static NoteWithTags of(NoteDto note, List<TagDto> tags) {
+        return new NoteWithTags(note.id(), note.created(), note.modified(), note.content(), note.version(), tags);
+    }
+}
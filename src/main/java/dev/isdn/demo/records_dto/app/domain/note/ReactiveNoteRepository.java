@@ -0,0 +1,162 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.ReactiveDatabase;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of the queries of {@link NoteRepository} on the tables created for {@link Note}.
+ * Content is converted by the same {@link NoteContentConverter}, every write sets the entity version of the DTO.
+ */
+@Repository
+@Profile("r2dbc")
+public class ReactiveNoteRepository {
+
+    private static final String SELECT_NOTES = "SELECT n.id, n.created, n.modified, n.content, n.version FROM notes n";
+
+    private final DatabaseClient client;
+    private final NoteContentConverter converter;
+
+    public ReactiveNoteRepository(ReactiveDatabase database, AutowireCapableBeanFactory beanFactory) {
+        this.client = database.client();
+        // configured the same way as the converter created for Hibernate
+        this.converter = beanFactory.createBean(NoteContentConverter.class);
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return client.sql("SELECT COUNT(*) FROM notes WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<NoteDto> findById(long id) {
+        return client.sql(SELECT_NOTES + " WHERE n.id = :id")
+                .bind("id", id)
+                .map(this::toDto)
+                .one();
+    }
+
+    /**
+     * @see NoteRepository#findVersionById(long)
+     */
+    public Mono<Long> findVersionById(long id) {
+        return client.sql("SELECT version FROM notes WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveDatabase::version)
+                .one();
+    }
+
+    public Flux<NoteDto> findAllByTagId(long tagId) {
+        return client.sql(SELECT_NOTES + " INNER JOIN note_tag nt ON nt.note_id = n.id WHERE nt.tag_id = :tagId")
+                .bind("tagId", tagId)
+                .map(this::toDto)
+                .all();
+    }
+
+    public Flux<NoteDto> findAll() {
+        return client.sql(SELECT_NOTES)
+                .map(this::toDto)
+                .all();
+    }
+
+    public Mono<Long> countAllByTagId(long tagId) {
+        return client.sql("SELECT COUNT(*) FROM note_tag WHERE tag_id = :tagId")
+                .bind("tagId", tagId)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<NoteDto> insert(NoteDto note) {
+        return client.sql("INSERT INTO notes (id, version, created, modified, content, content_length, preview) " +
+                        "VALUES (:id, :version, :created, :modified, :content, :length, :preview)")
+                .bind("id", note.id())
+                .bind("version", note.version())
+                .bind("created", note.created())
+                .bind("modified", note.modified())
+                .bind("content", converter.convertToDatabaseColumn(note.content()))
+                .bind("length", note.content().length())
+                .bind("preview", Note.preview(note.content()))
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(note);
+    }
+
+    /**
+     * Updates the note unless its version is no longer the expected one.
+     * @return number of updated rows
+     */
+    public Mono<Integer> updateContentById(long id, String content, long modified, long version, long expectedVersion) {
+        return client.sql("UPDATE notes SET version = :version, modified = :modified, content = :content, " +
+                        "content_length = :length, preview = :preview WHERE id = :id AND version = :expectedVersion")
+                .bind("id", id)
+                .bind("expectedVersion", expectedVersion)
+                .bind("version", version)
+                .bind("modified", modified)
+                .bind("content", converter.convertToDatabaseColumn(content))
+                .bind("length", content.length())
+                .bind("preview", Note.preview(content))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Deletes the links of the note and the note and leaves a tombstone of the note,
+     * the caller provides the transaction.
+     * @param deleted time of the deletion, epoch seconds
+     * @return number of deleted notes
+     */
+    public Mono<Integer> deleteById(long id, long deleted) {
+        return client.sql("DELETE FROM note_tag WHERE note_id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .then(client.sql("DELETE FROM notes WHERE id = :id")
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated())
+                .flatMap(rows -> rows == 0 ? Mono.just(rows) : client.sql(
+                                "MERGE INTO note_tombstones (note_id, deleted) KEY (note_id) VALUES (:id, :deleted)")
+                        .bind("id", id)
+                        .bind("deleted", deleted)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(rows));
+    }
+
+    /**
+     * @see NoteRepository#insertNoteTag(long, long)
+     * @return number of inserted rows
+     */
+    public Mono<Integer> insertNoteTag(long noteId, long tagId) {
+        return client.sql("INSERT INTO note_tag (note_id, tag_id) SELECT n.id, t.id FROM notes n, tags t " +
+                        "WHERE n.id = :noteId AND t.id = :tagId " +
+                        "AND NOT EXISTS (SELECT 1 FROM note_tag nt WHERE nt.note_id = :noteId AND nt.tag_id = :tagId)")
+                .bind("noteId", noteId)
+                .bind("tagId", tagId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @return number of deleted rows
+     */
+    public Mono<Integer> deleteNoteTag(long noteId, long tagId) {
+        return client.sql("DELETE FROM note_tag WHERE note_id = :noteId AND tag_id = :tagId")
+                .bind("noteId", noteId)
+                .bind("tagId", tagId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private NoteDto toDto(Row row) {
+        return new NoteDto(row.get("id", Long.class), row.get("created", Long.class), row.get("modified", Long.class),
+                converter.convertToEntityAttribute(row.get("content", String.class)), ReactiveDatabase.version(row));
+    }
+
+}
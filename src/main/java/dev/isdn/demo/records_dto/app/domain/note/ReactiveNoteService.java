@@ -0,0 +1,182 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import dev.isdn.demo.records_dto.app.domain.common.Functions;
+import dev.isdn.demo.records_dto.app.domain.common.ReactiveDatabase;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking variant of the core operations of {@link NoteService}, for the {@code r2dbc} profile.
+ * Writes return the same {@link Result} values as the ID-based methods of {@link NoteService}.
+ */
+@Service
+@Profile("r2dbc")
+public class ReactiveNoteService {
+
+    final private ReactiveNoteRepository repository;
+
+    final private ReactiveTagRepository tagRepository;
+
+    final private ReactiveDatabase database;
+
+    final private NoteSearchIndex searchIndex;
+
+    final private NoteTagIndex tagIndex;
+
+    final private ChangeFeed changeFeed;
+
+    public ReactiveNoteService(ReactiveNoteRepository repository, ReactiveTagRepository tagRepository,
+                               ReactiveDatabase database, NoteSearchIndex searchIndex, NoteTagIndex tagIndex,
+                               ChangeFeed changeFeed) {
+        this.repository = repository;
+        this.tagRepository = tagRepository;
+        this.database = database;
+        this.searchIndex = searchIndex;
+        this.tagIndex = tagIndex;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * @return the created note, or empty if there is no content
+     */
+    public Mono<NoteDto> createNote(NoteContent content) {
+        return Mono.justOrEmpty(content)
+                .mapNotNull(NoteContent::content)
+                .map(c -> {
+                    long now = Instant.now().getEpochSecond();
+                    return new NoteDto(database.nextId(), now, now, c, database.nextVersion());
+                })
+                .flatMap(repository::insert)
+                .doOnNext(note -> {
+                    searchIndex.putAfterCommit(note.id(), note.content(), note.version());
+                    tagIndex.addNoteAfterCommit(note.id(), note.version());
+                    changeFeed.publishAfterCommit(Change.Type.NOTE_CREATED, note.id(), note.version());
+                });
+    }
+
+    /**
+     * @return {@code Result.Done} with the updated {@link NoteDto}, {@code Result.NoSuchElement}
+     * or {@code Result.Error} if the content is not valid,
+     * {@link OptimisticLockingFailureException} if the note was changed since it was read
+     */
+    public Mono<Result> updateNoteContentById(long noteId, NoteContent content) {
+        return database.transactional(repository.findById(noteId)
+                .flatMap(n -> Mono.justOrEmpty(content)
+                        .mapNotNull(NoteContent::content)
+                        .map(c -> new NoteDto(n.id(), n.created(), Instant.now().getEpochSecond(), c,
+                                database.nextVersion()))
+                        .flatMap(note -> repository.updateContentById(note.id(), note.content(), note.modified(),
+                                        note.version(), n.version())
+                                .flatMap(rows -> rows > 0 ? Mono.just(note) : Mono.error(
+                                        new OptimisticLockingFailureException("Note " + noteId + " was changed concurrently"))))
+                        .<Result>map(Result.Done::new)
+                        .defaultIfEmpty(new Result.Error()))
+                .defaultIfEmpty(Result.NoSuchElement.note(noteId)))
+                .doOnNext(result -> {
+                    if (result instanceof Result.Done done && done.element() instanceof NoteDto note) {
+                        searchIndex.putAfterCommit(note.id(), note.content(), note.version());
+                        changeFeed.publishAfterCommit(Change.Type.NOTE_UPDATED, note.id(), note.version());
+                    }
+                });
+    }
+
+    public Mono<NoteDto> getNoteById(long noteId) {
+        return repository.findById(noteId);
+    }
+
+    /**
+     * @see NoteService#getNoteVersion(long)
+     */
+    public Mono<Long> getNoteVersion(long noteId) {
+        return repository.findVersionById(noteId);
+    }
+
+    public Flux<NoteDto> getTagNotes(TagDto tag) {
+        return Mono.justOrEmpty(Functions.checkTagDto.apply(tag))
+                .flatMapMany(t -> repository.findAllByTagId(t.id()));
+    }
+
+    public Mono<Long> getTagNotesCount(long tagId) {
+        return repository.countAllByTagId(tagId);
+    }
+
+    public Flux<NoteDto> getAllNotes() {
+        return repository.findAll();
+    }
+
+    /**
+     * Deletes the note and its links to tags and leaves a tombstone of the note in one transaction.
+     * @return {@code Result.Ok} or {@code Result.NoSuchElement}
+     */
+    public Mono<Result> deleteNoteById(long noteId) {
+        return database.transactional(repository.deleteById(noteId, Instant.now().getEpochSecond()))
+                .doOnNext(rows -> {
+                    long version = database.nextVersion();
+                    searchIndex.removeAfterCommit(noteId, version);
+                    tagIndex.removeNoteAfterCommit(noteId, version);
+                    if (rows > 0) {
+                        changeFeed.publishAfterCommit(Change.Type.NOTE_DELETED, noteId, version);
+                    }
+                })
+                .map(rows -> rows > 0 ? new Result.Ok() : Result.NoSuchElement.note(noteId));
+    }
+
+    /**
+     * @see NoteService#addTagToNoteById(long, long)
+     */
+    public Mono<Result> addTagToNoteById(long noteId, long tagId) {
+        AtomicLong version = new AtomicLong();
+        return updateNoteTagById(noteId, tagId, repository.insertNoteTag(noteId, tagId), version)
+                .doOnNext(result -> {
+                    if (result instanceof Result.Done done && done.element() instanceof NoteDto note) {
+                        tagIndex.linkAfterCommit(noteId, tagId, version.get());
+                        changeFeed.publishAfterCommit(Change.Type.TAG_ATTACHED, noteId, tagId, note.version());
+                    }
+                });
+    }
+
+    /**
+     * @see NoteService#deleteTagFromNoteById(long, long)
+     */
+    public Mono<Result> deleteTagFromNoteById(long noteId, long tagId) {
+        AtomicLong version = new AtomicLong();
+        return updateNoteTagById(noteId, tagId, repository.deleteNoteTag(noteId, tagId), version)
+                .doOnNext(result -> {
+                    if (result instanceof Result.Done done && done.element() instanceof NoteDto note) {
+                        tagIndex.unlinkAfterCommit(noteId, tagId, version.get());
+                        changeFeed.publishAfterCommit(Change.Type.TAG_DETACHED, noteId, tagId, note.version());
+                    }
+                });
+    }
+
+    /**
+     * @param version set to a version taken in the transaction after the link is written,
+     *                so the {@link NoteTagIndex} gets the changes of a link versioned in their commit order
+     */
+    private Mono<Result> updateNoteTagById(long noteId, long tagId, Mono<Integer> update, AtomicLong version) {
+        return database.transactional(repository.findById(noteId)
+                .flatMap(note -> update
+                        // the note or the tag was deleted, or the same pair was linked concurrently
+                        .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(0))
+                        .flatMap(rows -> rows > 0
+                                ? Mono.<Result>fromSupplier(() -> {
+                                    version.set(database.nextVersion());
+                                    return new Result.Done(note);
+                                })
+                                : tagRepository.existsById(tagId)
+                                        .map(exists -> exists ? new Result.Error() : Result.NoSuchElement.tag(tagId))))
+                .defaultIfEmpty(Result.NoSuchElement.note(noteId)));
+    }
+
+}
@@ -0,0 +1,32 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import java.util.Optional;
+
+/**
+ * Boolean expression over tag IDs, for example {@code 1 AND (2 OR 3) AND NOT 4}.
+ * Operators are {@code AND} or {@code &}, {@code OR} or {@code |}, {@code NOT} or {@code !} (in any case),
+ * {@code NOT} binds tighter than {@code AND} and {@code AND} binds tighter than {@code OR}.
+ */
+public sealed interface TagExpression {
+
+    record Tag(long id) implements TagExpression {}
+
+    record Not(TagExpression operand) implements TagExpression {}
+
+    record And(TagExpression left, TagExpression right) implements TagExpression {}
+
+    record Or(TagExpression left, TagExpression right) implements TagExpression {}
+
+    /**
+     * @return the expression, or empty if the text is not a valid expression
+     * or is longer than {@value Constants#TAG_EXPRESSION_LENGTH} characters
+     */
+    static Optional<TagExpression> parse(String text) {
+        if (text == null || text.length() > Constants.TAG_EXPRESSION_LENGTH) {
+            return Optional.empty();
+        }
+        return new TagExpressionParser(text).parse();
+    }
+
+}
@@ -0,0 +1,101 @@
+package dev.isdn.demo.records_dto.app.domain.note;
+
+import java.util.Optional;
+
+/**
+ * Recursive descent parser of {@link TagExpression}:
+ * <pre>
+ * or      = and { ("OR" | "|") and }
+ * and     = unary { ("AND" | "&amp;") unary }
+ * unary   = ("NOT" | "!") unary | primary
+ * primary = tag-id | "(" or ")"
+ * </pre>
+ */
+final class TagExpressionParser {
+
+    private final String text;
+    private int position = 0;
+
+    TagExpressionParser(String text) {
+        this.text = text;
+    }
+
+    Optional<TagExpression> parse() {
+        try {
+            TagExpression expression = or();
+            skipSpaces();
+            return position == text.length() ? Optional.of(expression) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private TagExpression or() {
+        TagExpression expression = and();
+        while (accept("|", "OR")) {
+            expression = new TagExpression.Or(expression, and());
+        }
+        return expression;
+    }
+
+    private TagExpression and() {
+        TagExpression expression = unary();
+        while (accept("&", "AND")) {
+            expression = new TagExpression.And(expression, unary());
+        }
+        return expression;
+    }
+
+    private TagExpression unary() {
+        if (accept("!", "NOT")) {
+            return new TagExpression.Not(unary());
+        }
+        return primary();
+    }
+
+    private TagExpression primary() {
+        if (accept("(", null)) {
+            TagExpression expression = or();
+            if (! accept(")", null)) {
+                throw new IllegalArgumentException("')' expected at " + position);
+            }
+            return expression;
+        }
+        skipSpaces();
+        int start = position;
+        while (position < text.length() && Character.isDigit(text.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw new IllegalArgumentException("tag ID expected at " + position);
+        }
+        // Long.parseLong rejects numbers out of range
+        return new TagExpression.Tag(Long.parseLong(text, start, position, 10));
+    }
+
+    /**
+     * Consumes the symbol or the keyword, a keyword must not be followed by a letter or a digit.
+     */
+    private boolean accept(String symbol, String keyword) {
+        skipSpaces();
+        if (text.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        if (keyword != null && text.regionMatches(true, position, keyword, 0, keyword.length())) {
+            int end = position + keyword.length();
+            if (end == text.length() || ! Character.isLetterOrDigit(text.charAt(end))) {
+                position = end;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+}
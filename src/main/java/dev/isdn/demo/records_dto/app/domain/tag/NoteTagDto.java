@@ -0,0 +1,11 @@
+package dev.isdn.demo.records_dto.app.domain.tag;
+
+/**
+ * A tag linked to a note, a row of the join of {@code note_tag} and {@code tags}.
+ */
+public record NoteTagDto(long noteId, long id, String name, String color, long version) {
+
+    public TagDto tag() {
+        return new TagDto(id, name, color, version);
+    }
+}
@@ -0,0 +1,108 @@
+package dev.isdn.demo.records_dto.app.domain.tag;
+
+import dev.isdn.demo.records_dto.app.domain.common.ReactiveDatabase;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of the queries of {@link TagRepository} on the tables created for {@link Tag}.
+ * Every write sets the entity version of the DTO.
+ */
+@Repository
+@Profile("r2dbc")
+public class ReactiveTagRepository {
+
+    private static final String SELECT_TAGS = "SELECT t.id, t.name, t.color, t.version FROM tags t";
+
+    private final DatabaseClient client;
+
+    public ReactiveTagRepository(ReactiveDatabase database) {
+        this.client = database.client();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return client.sql("SELECT COUNT(*) FROM tags WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<TagDto> findById(long id) {
+        return client.sql(SELECT_TAGS + " WHERE t.id = :id")
+                .bind("id", id)
+                .map(ReactiveTagRepository::toDto)
+                .one();
+    }
+
+    public Flux<TagDto> findAllByNoteId(long noteId) {
+        return client.sql(SELECT_TAGS + " INNER JOIN note_tag nt ON nt.tag_id = t.id WHERE nt.note_id = :noteId")
+                .bind("noteId", noteId)
+                .map(ReactiveTagRepository::toDto)
+                .all();
+    }
+
+    public Flux<TagDto> findAll() {
+        return client.sql(SELECT_TAGS)
+                .map(ReactiveTagRepository::toDto)
+                .all();
+    }
+
+    public Mono<Long> countAllByNoteId(long noteId) {
+        return client.sql("SELECT COUNT(*) FROM note_tag WHERE note_id = :noteId")
+                .bind("noteId", noteId)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<TagDto> insert(TagDto tag) {
+        return client.sql("INSERT INTO tags (id, version, name, color) VALUES (:id, :version, :name, :color)")
+                .bind("id", tag.id())
+                .bind("version", tag.version())
+                .bind("name", tag.name())
+                .bind("color", tag.color())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(tag);
+    }
+
+    /**
+     * Updates the tag unless its version is no longer the expected one.
+     * @return number of updated rows
+     */
+    public Mono<Integer> update(TagDto tag, long expectedVersion) {
+        return client.sql("UPDATE tags SET version = :version, name = :name, color = :color " +
+                        "WHERE id = :id AND version = :expectedVersion")
+                .bind("id", tag.id())
+                .bind("expectedVersion", expectedVersion)
+                .bind("version", tag.version())
+                .bind("name", tag.name())
+                .bind("color", tag.color())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Deletes the links of the tag and the tag, the caller provides the transaction.
+     * @return number of deleted tags
+     */
+    public Mono<Integer> deleteById(long id) {
+        return client.sql("DELETE FROM note_tag WHERE tag_id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .then(client.sql("DELETE FROM tags WHERE id = :id")
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    private static TagDto toDto(Row row) {
+        return new TagDto(row.get("id", Long.class), row.get("name", String.class), row.get("color", String.class),
+                ReactiveDatabase.version(row));
+    }
+
+}
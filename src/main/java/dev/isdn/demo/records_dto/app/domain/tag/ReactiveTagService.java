@@ -0,0 +1,137 @@
+package dev.isdn.demo.records_dto.app.domain.tag;
+
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Functions;
+import dev.isdn.demo.records_dto.app.domain.common.ReactiveDatabase;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteTagIndex;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Optional;
+
+/**
+ * Non-blocking variant of the core operations of {@link TagService}, for the {@code r2dbc} profile.
+ * Name uniqueness is left to the unique constraint of the table, a taken name fails the write.
+ * Written names replace the old ones in the {@link TagNameIndex} and written tags are invalidated in the
+ * {@link TagCache}, so the blocking service sees the changes. An update of a tag changed since it was read
+ * fails with {@link OptimisticLockingFailureException}, as the versioned update of the JPA path does.
+ */
+@Service
+@Profile("r2dbc")
+public class ReactiveTagService {
+
+    final private ReactiveTagRepository repository;
+
+    final private ReactiveDatabase database;
+
+    final private TagNameIndex nameIndex;
+
+    final private TagCache cache;
+
+    final private NoteTagIndex noteIndex;
+
+    final private ChangeFeed changeFeed;
+
+    public ReactiveTagService(ReactiveTagRepository repository, ReactiveDatabase database, TagNameIndex nameIndex,
+                              TagCache cache, NoteTagIndex noteIndex, ChangeFeed changeFeed) {
+        this.repository = repository;
+        this.database = database;
+        this.nameIndex = nameIndex;
+        this.cache = cache;
+        this.noteIndex = noteIndex;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * @return the created tag, or empty if the content is not valid or the name is taken
+     */
+    public Mono<TagDto> createTag(TagContent content) {
+        return Mono.justOrEmpty(checkContent(database.nextId(), database.nextVersion(), content, Constants.DEFAULT_COLOR))
+                .flatMap(repository::insert)
+                .doOnNext(tag -> written(tag, null, Change.Type.TAG_CREATED))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.empty());
+    }
+
+    /**
+     * @return {@code Result.Done} with the updated {@link TagDto}, {@code Result.NoSuchElement}
+     * or {@code Result.Error} if the content is not valid or the name is taken,
+     * {@link OptimisticLockingFailureException} if the tag was changed since it was read
+     */
+    public Mono<Result> updateTagContentById(long tagId, TagContent content) {
+        return repository.findById(tagId)
+                .flatMap(t -> Mono.justOrEmpty(checkContent(tagId, database.nextVersion(), content, null))
+                        .flatMap(tag -> repository.update(tag, t.version())
+                                .flatMap(rows -> rows > 0 ? Mono.just(tag) : Mono.error(
+                                        new OptimisticLockingFailureException("Tag " + tagId + " was changed concurrently"))))
+                        .doOnNext(tag -> written(tag, t.name(), Change.Type.TAG_UPDATED))
+                        .<Result>map(Result.Done::new)
+                        .onErrorResume(DataIntegrityViolationException.class, e -> Mono.empty())
+                        .defaultIfEmpty(new Result.Error()))
+                .defaultIfEmpty(Result.NoSuchElement.tag(tagId));
+    }
+
+    public Mono<TagDto> getTagById(long tagId) {
+        return repository.findById(tagId);
+    }
+
+    public Flux<TagDto> getNoteTags(NoteDto note) {
+        return Mono.justOrEmpty(Functions.checkNoteDto.apply(note))
+                .flatMapMany(n -> repository.findAllByNoteId(n.id()));
+    }
+
+    public Mono<Long> getNoteTagsCount(long noteId) {
+        return repository.countAllByNoteId(noteId);
+    }
+
+    public Flux<TagDto> getAllTags() {
+        return repository.findAll();
+    }
+
+    /**
+     * Deletes the tag and its links to notes in one transaction.
+     * @return {@code Result.Ok} or {@code Result.NoSuchElement}
+     */
+    public Mono<Result> deleteTagById(long tagId) {
+        return database.transactional(repository.deleteById(tagId))
+                .doOnNext(rows -> {
+                    cache.invalidate(tagId);
+                    long version = database.nextVersion();
+                    noteIndex.removeTagAfterCommit(tagId, version);
+                    if (rows > 0) {
+                        changeFeed.publishAfterCommit(Change.Type.TAG_DELETED, tagId, version);
+                    }
+                })
+                .map(rows -> rows > 0 ? new Result.Ok() : Result.NoSuchElement.tag(tagId));
+    }
+
+    /**
+     * @param oldName the name of the tag before the write, null for a created tag
+     */
+    private void written(TagDto tag, String oldName, Change.Type type) {
+        cache.invalidate(tag.id());
+        nameIndex.replaceAfterCommit(oldName, tag.name());
+        changeFeed.publishAfterCommit(type, tag.id(), tag.version());
+    }
+
+    /**
+     * @param defaultColor color of a content without color, null if the color is required
+     */
+    private static Optional<TagDto> checkContent(long id, long version, TagContent content, String defaultColor) {
+        return Optional.ofNullable(content)
+                .flatMap(c -> Functions.checkTagName.apply(c.name())
+                        .flatMap(name -> (c.color() == null && defaultColor != null
+                                ? Optional.of(defaultColor)
+                                : Functions.checkTagColor.apply(c.color()))
+                                .map(color -> new TagDto(id, name, color, version))
+                        )
+                );
+    }
+
+}
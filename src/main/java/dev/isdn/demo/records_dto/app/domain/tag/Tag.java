@@ -52,4 +52,8 @@ public class Tag extends AbstractEntity {
         return this;
     }
 
+    protected TagDto toDto() {
+        return new TagDto(getId(), name, color, getVersion());
+    }
+
 }
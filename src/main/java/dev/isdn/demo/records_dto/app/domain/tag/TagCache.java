@@ -0,0 +1,57 @@
+package dev.isdn.demo.records_dto.app.domain.tag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.isdn.demo.records_dto.app.domain.common.CacheStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * Tags by ID, bounded by size and time to live.
+ * A changed tag is invalidated when it is written and once more when its transaction completes,
+ * so a concurrent read can not keep the state that was replaced.
+ * Tags changed past the service stay cached until they expire.
+ */
+@Component
+public class TagCache {
+
+    private final Cache<Long, TagDto> cache;
+
+    public TagCache(@Value("${tags.cache.max-size:10000}") long maxSize,
+                    @Value("${tags.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    Optional<TagDto> get(long id, LongFunction<Optional<TagDto>> query) {
+        return Optional.ofNullable(cache.get(id, key -> query.apply(key).orElse(null)));
+    }
+
+    void invalidate(long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+}
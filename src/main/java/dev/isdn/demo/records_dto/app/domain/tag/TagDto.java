@@ -7,14 +7,16 @@ import java.util.Objects;
 public record TagDto(
     @JsonProperty("id") long id,
     @JsonProperty("name") String name,
-    @JsonProperty("color") String color
+    @JsonProperty("color") String color,
+    @JsonProperty("version") long version
 ) {
     @JsonCreator
-    public TagDto(long id, String name, String color) {
+    public TagDto(long id, String name, String color, long version) {
         Objects.requireNonNull(name);
         Objects.requireNonNull(color);
         this.id = id;
         this.name = name;
         this.color = color;
+        this.version = version;
     }
 }
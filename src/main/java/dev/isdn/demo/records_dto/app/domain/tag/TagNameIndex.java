@@ -0,0 +1,79 @@
+package dev.isdn.demo.records_dto.app.domain.tag;
+
+import dev.isdn.demo.records_dto.app.domain.common.Transactions;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Names of the stored tags, kept in memory to check name availability without a query.
+ * A name that is not in the index is free, a name that is in the index is confirmed with the DB
+ * and evicted if the tag is gone, so tags changed past the service cost a query but never a false answer.
+ * The unique constraint of the table remains the final check.
+ */
+@Component
+public class TagNameIndex {
+
+    private final TagRepository repository;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded = false;
+
+    public TagNameIndex(TagRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<String> stored = repository.fetchAllNames()) {
+            stored.forEach(names::add);
+        }
+        loaded = true;
+    }
+
+    public boolean isFree(String name) {
+        if (! loaded) {
+            return ! repository.existsByName(name);
+        }
+        if (! names.contains(name)) {
+            return true;
+        }
+        if (repository.existsByName(name)) {
+            return false;
+        }
+        names.remove(name);
+        return true;
+    }
+
+    /**
+     * Adds a name that is known to be taken, it is confirmed on the next check.
+     */
+    void add(String name) {
+        names.add(name);
+    }
+
+    /**
+     * Replaces a name once the current transaction commits.
+     * @param oldName name to remove or null
+     * @param newName name to add or null
+     */
+    void replaceAfterCommit(String oldName, String newName) {
+        if (Objects.equals(oldName, newName)) {
+            return;
+        }
+        Transactions.afterCommit(() -> {
+            if (oldName != null) {
+                names.remove(oldName);
+            }
+            if (newName != null) {
+                names.add(newName);
+            }
+        });
+    }
+
+}
@@ -1,5 +1,7 @@
 package dev.isdn.demo.records_dto.app.domain.tag;
 
+import dev.isdn.demo.records_dto.app.domain.common.CollectionVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +9,8 @@ import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -31,15 +35,29 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color) FROM tags t WHERE t.id = :id")
+    @Query(value = "SELECT t.name FROM tags t WHERE t.name IN :names")
+    List<String> findNamesIn(@Param("names") Collection<String> names);
+
+    @QueryHints(value = {
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color, t.version) FROM tags t WHERE t.id = :id")
     Optional<TagDto> findById(@Param("id") long id);
 
+    @QueryHints(value = {
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.common.CollectionVersion(COUNT(t), COALESCE(MAX(t.version), 0)) FROM tags t")
+    CollectionVersion fetchTagsVersion();
+
     @QueryHints(value = {
             @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color) FROM tags t INNER JOIN t.notes n WHERE n.id = :noteId")
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color, t.version) FROM tags t INNER JOIN t.notes n WHERE n.id = :noteId")
     Stream<TagDto> findAllByNoteId(@Param("noteId") long noteId);
 
     @QueryHints(value = {
@@ -47,11 +65,55 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
             @QueryHint(name = READ_ONLY, value = "true")
     })
     @Transactional(readOnly = true)
-    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color) FROM tags t")
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.NoteTagDto(n.id, t.id, t.name, t.color, t.version) FROM tags t INNER JOIN t.notes n WHERE n.id IN :noteIds ORDER BY t.id")
+    List<NoteTagDto> findAllByNoteIdIn(@Param("noteIds") Collection<Long> noteIds);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.NoteTagDto(n.id, t.id, t.name, t.color, t.version) FROM tags t INNER JOIN t.notes n ORDER BY t.id")
+    Stream<NoteTagDto> fetchAllNoteTags();
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color, t.version) FROM tags t")
     Stream<TagDto> fetchAllTags();
 
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT t.name FROM tags t")
+    Stream<String> fetchAllNames();
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color, t.version) FROM tags t WHERE t.id > :id ORDER BY t.id")
+    List<TagDto> findPageAfter(@Param("id") long id, Pageable page);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new dev.isdn.demo.records_dto.app.domain.tag.TagDto(t.id, t.name, t.color, t.version) FROM tags t WHERE t.id IN :ids ORDER BY t.id")
+    List<TagDto> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT nt.tag_id FROM note_tag nt WHERE nt.note_id = :noteId AND nt.tag_id > :id ORDER BY nt.tag_id", nativeQuery = true)
+    List<Long> findIdsByNoteIdAfter(@Param("noteId") long noteId, @Param("id") long id, Pageable page);
+
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("UPDATE tags t SET t.name = :name WHERE t.id = :id")
+    @Query("UPDATE VERSIONED tags t SET t.name = :name WHERE t.id = :id")
     int updateTagNameById(@Param("id") long id, @Param("name") String name);
 
     @QueryHints(value = {
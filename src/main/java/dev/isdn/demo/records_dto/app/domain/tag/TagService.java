@@ -1,35 +1,73 @@
 package dev.isdn.demo.records_dto.app.domain.tag;
 
+import dev.isdn.demo.records_dto.app.domain.common.CacheStatistics;
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import dev.isdn.demo.records_dto.app.domain.common.CollectionVersion;
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
 import dev.isdn.demo.records_dto.app.domain.common.Functions;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.common.StreamPublisher;
 import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteTagIndex;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class TagService {
 
+    private static final int CREATE_ATTEMPTS = 3;
+
     final private TagRepository repository;
 
-    public TagService(TagRepository repository) {
+    final private StreamPublisher streamPublisher;
+
+    final private TagNameIndex nameIndex;
+
+    final private TagCache cache;
+
+    final private NoteTagIndex noteIndex;
+
+    final private ChangeFeed changeFeed;
+
+    final private TransactionTemplate transactionTemplate;
+
+    public TagService(TagRepository repository, StreamPublisher streamPublisher, TagNameIndex nameIndex,
+                      TagCache cache, NoteTagIndex noteIndex, ChangeFeed changeFeed,
+                      PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.streamPublisher = streamPublisher;
+        this.nameIndex = nameIndex;
+        this.cache = cache;
+        this.noteIndex = noteIndex;
+        this.changeFeed = changeFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Transactional
     public Optional<TagDto> createTag(String name) {
         return setTagName(new Tag(), name)
-                .map(repository::saveAndFlush)
-                .flatMap(tag -> repository.findById(tag.getId()));
+                .flatMap(this::saveTag)
+                .map(Tag::toDto);
     }
 
     @Transactional
     public Optional<TagDto> createTag(String name, String color) {
-        return setTagName(new Tag(), name)
-                .flatMap(tag -> setTagColor(tag, color))
-                .map(repository::saveAndFlush)
-                .flatMap(tag -> repository.findById(tag.getId()));
+        return setTagColor(new Tag(), color)
+                .flatMap(tag -> setTagName(tag, name))
+                .flatMap(this::saveTag)
+                .map(Tag::toDto);
     }
 
     @Transactional
@@ -37,35 +75,104 @@ public class TagService {
         return content.color() != null ? createTag(content.name(), content.color()) : createTag(content.name());
     }
 
+    /**
+     * Creates tags in one transaction: names are checked for uniqueness with a single query
+     * and the accepted tags are inserted in JDBC batches.
+     * Results follow the order of contents: {@code Result.Done} holds a created {@link TagDto},
+     * {@code Result.Error} marks invalid content or a name that is already taken.
+     * <p>
+     * A name taken by a concurrent transaction after the check fails the whole flush, so the transaction
+     * is rolled back and the batch is created again in a new one, where the check finds the name.
+     */
+    public List<Result> createTags(List<TagContent> contents) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertTags(contents));
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == CREATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private List<Result> insertTags(List<TagContent> contents) {
+        List<Optional<Tag>> tags = contents.stream()
+                .map(this::newTag)
+                .toList();
+        Set<String> names = tags.stream()
+                .flatMap(Optional::stream)
+                .map(Tag::getName)
+                .collect(Collectors.toSet());
+        Set<String> takenNames = names.isEmpty() ? Set.of() : new HashSet<>(repository.findNamesIn(names));
+        Set<String> batchNames = new HashSet<>();
+        List<Optional<Tag>> accepted = tags.stream()
+                .map(tag -> tag.filter(t -> ! takenNames.contains(t.getName()) && batchNames.add(t.getName())))
+                .toList();
+
+        List<Tag> created = accepted.stream().flatMap(Optional::stream).toList();
+        repository.saveAll(created);
+        repository.flush();
+        batchNames.forEach(name -> nameIndex.replaceAfterCommit(null, name));
+        created.forEach(tag -> changeFeed.publishAfterCommit(Change.Type.TAG_CREATED, tag.getId(), tag.getVersion()));
+
+        return accepted.stream()
+                .map(tag -> tag.<Result>map(t -> new Result.Done(t.toDto())).orElseGet(Result.Error::new))
+                .toList();
+    }
+
     @Transactional
     public Optional<TagDto> updateTagName(TagDto tag, String name) {
         return Functions.checkTagDto.apply(tag)
                 .flatMap(t -> repository.getTagById(t.id()))
+                .map(this::invalidate)
                 .flatMap(t -> setTagName(t, name))
-                .map(repository::saveAndFlush)
-                .flatMap(t -> repository.findById(t.getId()));
+                .flatMap(this::saveTag)
+                .map(Tag::toDto);
     }
 
     @Transactional
     public Optional<TagDto> updateTagColor(TagDto tag, String color) {
         return Functions.checkTagDto.apply(tag)
                 .flatMap(t -> repository.getTagById(t.id()))
+                .map(this::invalidate)
                 .flatMap(t -> setTagColor(t, color))
-                .map(repository::saveAndFlush)
-                .flatMap(t -> repository.findById(t.getId()));
+                .flatMap(this::saveTag)
+                .map(Tag::toDto);
     }
 
     @Transactional
     public Optional<TagDto> updateTagContent(TagDto tag, TagContent content) {
         return Functions.checkTagDto.apply(tag)
                 .flatMap(t -> repository.getTagById(t.id()))
+                .map(this::invalidate)
                 .flatMap(t -> setTagNameAndColor(t, content.name(), content.color()))
-                .map(repository::saveAndFlush)
-                .flatMap(t -> repository.findById(t.getId()));
+                .flatMap(this::saveTag)
+                .map(Tag::toDto);
+    }
+
+    /**
+     * @return {@code Result.Done} with the updated {@link TagDto}, {@code Result.NoSuchElement}
+     * or {@code Result.Error} if the content is not valid or the name is taken
+     */
+    @Transactional
+    public Result updateTagContentById(long tagId, TagContent content) {
+        return repository.getTagById(tagId)
+                .map(this::invalidate)
+                .map(t -> Optional.ofNullable(content)
+                        .flatMap(c -> setTagNameAndColor(t, c.name(), c.color()))
+                        .flatMap(this::saveTag)
+                        .<Result>map(tag -> new Result.Done(tag.toDto()))
+                        .orElseGet(Result.Error::new))
+                .orElse(Result.NoSuchElement.tag(tagId));
     }
 
     public Optional<TagDto> getTagById(long tagId) {
-        return repository.findById(tagId);
+        return cache.get(tagId, repository::findById);
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        return cache.statistics();
     }
 
     @Transactional(readOnly = true)
@@ -75,6 +182,16 @@ public class TagService {
                 .orElse(Collections.emptyList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TagDto> getNoteTagsPage(NoteDto note, Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return Functions.checkNoteDto.apply(note)
+                .map(n -> repository.findIdsByNoteIdAfter(n.id(), after.id(), PageRequest.ofSize(size + 1)))
+                .map(ids -> ids.isEmpty() ? List.<TagDto>of() : repository.findAllByIdIn(ids))
+                .map(tags -> CursorPage.of(tags, size, t -> Cursor.afterId(t.id())))
+                .orElse(new CursorPage<>(Collections.emptyList(), null));
+    }
+
     @Transactional(readOnly = true)
     public long getNoteTagsCount(long noteId) {
         return repository.countAllByNoteId(noteId);
@@ -85,6 +202,28 @@ public class TagService {
         return repository.fetchAllTags().toList();
     }
 
+    /**
+     * @return the number of tags and their latest version, the tags are not read
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersion getTagsVersion() {
+        return repository.fetchTagsVersion();
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TagDto> getTagsPage(Cursor after, int limit) {
+        int size = Functions.checkPageLimit.apply(limit);
+        return CursorPage.of(
+                repository.findPageAfter(after.id(), PageRequest.ofSize(size + 1)),
+                size,
+                t -> Cursor.afterId(t.id())
+        );
+    }
+
+    public Flux<TagDto> streamAllTags() {
+        return streamPublisher.publish(repository::fetchAllTags);
+    }
+
     @Transactional
     public Result deleteTag(TagDto tag) {
         return Functions.checkTagDto.apply(tag)
@@ -94,20 +233,63 @@ public class TagService {
 
     @Transactional
     public Result deleteTagById(long tagId) {
-        if (repository.existsById(tagId)) {
-            repository.deleteById(tagId);
-            repository.flush();
-            return new Result.Ok();
+        return repository.getTagById(tagId)
+                .map(this::invalidate)
+                .<Result>map(t -> {
+                    repository.delete(t);
+                    repository.flush();
+                    nameIndex.replaceAfterCommit(t.getName(), null);
+                    // newer than every write committed before the delete, the version of the deleted tag
+                    long version = EntityVersionType.nextVersion();
+                    noteIndex.removeTagAfterCommit(t.getId(), version);
+                    changeFeed.publishAfterCommit(Change.Type.TAG_DELETED, t.getId(), version);
+                    return new Result.Ok();
+                })
+                .orElse(Result.NoSuchElement.tag(tagId));
+    }
+
+    private Tag invalidate(Tag tag) {
+        cache.invalidate(tag.getId());
+        return tag;
+    }
+
+    private Optional<Tag> saveTag(Tag tag) {
+        // the version is set by the first flush
+        Change.Type type = tag.getVersion() == null ? Change.Type.TAG_CREATED : Change.Type.TAG_UPDATED;
+        try {
+            Tag saved = repository.saveAndFlush(tag);
+            changeFeed.publishAfterCommit(type, saved.getId(), saved.getVersion());
+            return Optional.of(saved);
+        } catch (DataIntegrityViolationException e) {
+            // the name was taken past the index, the failed flush leaves nothing to commit
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            nameIndex.add(tag.getName());
+            return Optional.empty();
         }
-        return new Result.NoSuchElement(tagId);
     }
 
     private Optional<Tag> setTagName(Tag tag, String name) {
         return Optional.ofNullable(tag)
                 .flatMap(t ->
                         Functions.checkTagName.apply(name)
-                                .filter(Predicate.not(repository::existsByName))
-                                .map(t::setName)
+                                .filter(nameIndex::isFree)
+                                .map(n -> renameTag(t, n))
+                );
+    }
+
+    private Tag renameTag(Tag tag, String name) {
+        nameIndex.replaceAfterCommit(tag.getName(), name);
+        return tag.setName(name);
+    }
+
+    private Optional<Tag> newTag(TagContent content) {
+        return Optional.ofNullable(content)
+                .flatMap(c -> Functions.checkTagName.apply(c.name())
+                        .flatMap(name -> Optional.ofNullable(c.color())
+                                .map(Functions.checkTagColor)
+                                .orElse(Optional.of(Constants.DEFAULT_COLOR))
+                                .map(color -> new Tag().setName(name).setColor(color))
+                        )
                 );
     }
 
@@ -122,9 +304,10 @@ public class TagService {
     private Optional<Tag> setTagNameAndColor(Tag tag, String name, String color) {
         return Optional.ofNullable(tag)
                 .flatMap(t ->
-                        Functions.checkTagName.apply(name).isPresent() ?
-                            Functions.checkTagColor.apply(color).map(c -> t.setName(name).setColor(c)) :
-                            Optional.empty()
+                        Functions.checkTagName.apply(name)
+                                .filter(n -> n.equals(t.getName()) || nameIndex.isFree(n))
+                                .flatMap(n -> Functions.checkTagColor.apply(color)
+                                        .map(c -> renameTag(t, n).setColor(c)))
                 );
     }
 
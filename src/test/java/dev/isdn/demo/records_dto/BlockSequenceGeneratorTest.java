@@ -0,0 +1,136 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.BlockSequenceGenerator;
+import dev.isdn.demo.records_dto.app.domain.common.SequenceGenerator;
+import org.junit.jupiter.api.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class BlockSequenceGeneratorTest {
+
+    private SequenceGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        this.generator = new BlockSequenceGenerator();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if numbers in a sequence are unique")
+    void testUniqueNumbers(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 2_000_000;
+        Set<Long> numsChecked = new HashSet<>();
+
+        IntStream.range(0, amount).forEach(i -> numsChecked.add(generator.getNumber()));
+
+        assertThat(numsChecked).hasSize(amount);
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated "
+                + amount + " numbers, " + numsChecked.size() + " are unique");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test if all numbers are positive")
+    void testPositiveNumbers(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 10_000_000;
+        SequenceGenerator smallBlocks = new BlockSequenceGenerator(1);
+
+        IntStream.range(0, amount).forEach(i -> {
+            assertThat(generator.getNumber()).isPositive();
+            if (i % 100 == 0) {
+                assertThat(smallBlocks.getNumber()).isPositive();
+            }
+        });
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated "
+                + amount + " positive numbers");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test if sequences are unique in two instances")
+    void testTwoInstances(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 50_000;
+        SequenceGenerator generator1 = new BlockSequenceGenerator();
+        SequenceGenerator generator2 = new BlockSequenceGenerator();
+
+        Long[] nums1 = new Long[amount];
+        Long[] nums2 = new Long[amount];
+
+        IntStream.range(0, amount).forEach(i -> {
+            nums1[i] = generator1.getNumber();
+            nums2[i] = generator2.getNumber();
+        });
+
+        Set<Long> results = new HashSet<>(Arrays.asList(nums1));
+        results.retainAll(List.of(nums2));
+
+        assertThat(results).isEmpty();
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated two sequences of "
+                + amount + " unique numbers");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test if numbers are unique across threads")
+    void testConcurrentThreads(TestReporter testReporter, TestInfo testInfo) throws Exception {
+        int threads = 32;
+        int amount = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try {
+            IntStream.range(0, threads).forEach(t -> futures.add(executor.submit(() -> {
+                long[] nums = new long[amount];
+                barrier.await();
+                for (int i = 0; i < amount; i++) {
+                    nums[i] = generator.getNumber();
+                }
+                return nums;
+            })));
+
+            Set<Long> results = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long n : future.get(1, TimeUnit.MINUTES)) {
+                    assertThat(n).isPositive();
+                    results.add(n);
+                }
+            }
+
+            assertThat(results).hasSize(threads * amount);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": " + threads + " threads generated "
+                + threads * amount + " unique numbers");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Estimate generation speed")
+    void measureGenerationSpeed(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 50_000_000;
+
+        long startTime = Instant.now().toEpochMilli();
+        IntStream.range(0, amount).forEach($ -> generator.getNumber());
+        long resultTime = Math.max(1, Instant.now().toEpochMilli() - startTime);
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated "
+                + amount + " numbers, took: " + resultTime + " milliseconds. Approximately " + amount/resultTime + " numbers/ms.");
+    }
+
+}
@@ -0,0 +1,120 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.Change;
+import dev.isdn.demo.records_dto.app.domain.common.ChangeFeed;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"},
+        classes = {App.class})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ChangeFeedTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    NoteService noteService;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test changes of note and tag services")
+    void testServiceChanges() {
+        long start = changeFeed.lastSequence();
+
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        noteService.addTagToNoteById(note.id(), tag.id());
+        assertThatThrownBy(() -> tagService.deleteTagById(tag.id())).as("linked tag")
+                .isInstanceOf(DataIntegrityViolationException.class);
+        NoteDto staleNote = new NoteDto(note.id(), note.created(), note.modified(), note.content(), note.version() - 1);
+        noteService.deleteTagFromNote(staleNote, tag);
+        NoteDto updatedNote = noteService.updateNoteContent(note, "test note updated").orElseThrow();
+        TagDto updatedTag = tagService.updateTagName(tag, "test_tag_updated").orElseThrow();
+        noteService.deleteNoteById(note.id());
+        tagService.deleteTagById(tag.id());
+
+        List<Change> changes = changeFeed.changes(start).take(8).collectList().block(TIMEOUT);
+        assertThat(changes).as("committed changes only").containsExactly(
+                new Change(start + 1, Change.Type.NOTE_CREATED, note.id(), note.version(), null),
+                new Change(start + 2, Change.Type.TAG_CREATED, tag.id(), tag.version(), null),
+                new Change(start + 3, Change.Type.TAG_ATTACHED, note.id(), note.version(), tag.id()),
+                new Change(start + 4, Change.Type.TAG_DETACHED, note.id(), note.version(), tag.id()),
+                new Change(start + 5, Change.Type.NOTE_UPDATED, note.id(), updatedNote.version(), null),
+                new Change(start + 6, Change.Type.TAG_UPDATED, tag.id(), updatedTag.version(), null),
+                new Change(start + 7, Change.Type.NOTE_DELETED, note.id(), changes.get(6).version(), null),
+                new Change(start + 8, Change.Type.TAG_DELETED, tag.id(), changes.get(7).version(), null));
+        assertThat(changes.get(6).version()).as("deleted note version").isGreaterThan(updatedNote.version());
+        assertThat(changes.get(7).version()).as("deleted tag version")
+                .isGreaterThan(Math.max(updatedTag.version(), changes.get(6).version()));
+        assertThat(changeFeed.lastSequence()).isEqualTo(start + 8);
+        assertThat(changeFeed.changes(start + 6).take(2).collectList().block(TIMEOUT)).as("resumed")
+                .extracting(Change::sequence).containsExactly(start + 7, start + 8);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test live changes and resets of the ring buffer")
+    void testRingBuffer() {
+        ChangeFeed feed = new ChangeFeed(4, new SimpleMeterRegistry());
+        long start = feed.lastSequence();
+
+        CompletableFuture<List<Change>> live = feed.changes().take(2).collectList().toFuture();
+        feed.publishAfterCommit(Change.Type.NOTE_CREATED, 1, 1);
+        feed.publishAfterCommit(Change.Type.NOTE_UPDATED, 1, 2);
+        assertThat(live.join()).extracting(Change::id, Change::version).containsExactly(
+                tuple(1L, 1L), tuple(1L, 2L));
+
+        for (int i = 2; i < 7; i++) {
+            feed.publishAfterCommit(Change.Type.NOTE_CREATED, i, i);
+        }
+        assertThat(feed.changes(start).take(1).blockFirst(TIMEOUT)).as("overtaken by the buffer")
+                .isEqualTo(new Change(start + 7, Change.Type.RESET, 0, 0, null));
+        assertThat(feed.changes(start + 3).take(4).collectList().block(TIMEOUT)).as("oldest kept")
+                .extracting(Change::id).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(feed.changes(start - 1).blockFirst(TIMEOUT)).as("previous run").extracting(Change::type)
+                .isEqualTo(Change.Type.RESET);
+        assertThat(feed.changes(start + 8).blockFirst(TIMEOUT)).as("unknown").extracting(Change::type)
+                .isEqualTo(Change.Type.RESET);
+
+        CompletableFuture<List<Change>> resumed = feed.changes(start + 5).take(3).collectList().toFuture();
+        feed.publishAfterCommit(Change.Type.NOTE_DELETED, 1, 0);
+        assertThat(resumed.join()).as("kept, then live").extracting(Change::sequence)
+                .containsExactly(start + 6, start + 7, start + 8);
+    }
+
+}
@@ -0,0 +1,80 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.CompressionCodec;
+import org.junit.jupiter.api.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CompressionCodecTest {
+
+    private final CompressionCodec codec = new CompressionCodec(256, 6);
+
+    private static String markdown(int lines) {
+        return IntStream.range(0, lines)
+                .mapToObj(i -> "- [ ] item " + i + ": see **notes** in `docs/notes-" + i % 7 + ".md` 📝")
+                .collect(Collectors.joining("\n", "# Test note\n\n", "\n"));
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if compressed text is restored")
+    void testRoundTrip(TestReporter testReporter, TestInfo testInfo) {
+        String text = markdown(200);
+        String encoded = codec.encode(text);
+
+        assertThat(encoded).startsWith(String.valueOf(CompressionCodec.COMPRESSED));
+        assertThat(encoded.length()).isLessThan(text.length() / 2);
+        assertThat(CompressionCodec.decode(encoded)).isEqualTo(text);
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": " + text.length() + " characters encoded to "
+                + encoded.length());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test if short and incompressible text is kept")
+    void testPlainText() {
+        String random = new java.util.Random(1).ints(400, 0x4E00, 0x9FFF)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+
+        for (String text : new String[]{"", "test note content", random}) {
+            assertThat(codec.encode(text)).isEqualTo(text);
+            assertThat(CompressionCodec.decode(text)).isEqualTo(text);
+        }
+        assertThat(codec.encode(null)).isNull();
+        assertThat(CompressionCodec.decode(null)).isNull();
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test if text starting with a mark is escaped")
+    void testEscapedText() {
+        for (CompressionCodec c : new CompressionCodec[]{codec, new CompressionCodec()}) {
+            for (char mark : new char[]{CompressionCodec.COMPRESSED, CompressionCodec.ESCAPED}) {
+                String text = mark + "test";
+                assertThat(c.encode(text)).isEqualTo(CompressionCodec.ESCAPED + text);
+                assertThat(CompressionCodec.decode(c.encode(text))).isEqualTo(text);
+            }
+        }
+        assertThat(new CompressionCodec().encode(markdown(200))).as("codec without compression")
+                .isEqualTo(markdown(200));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test invalid compressed values")
+    void testInvalidValues() {
+        String encoded = codec.encode(markdown(200));
+
+        assertThatThrownBy(() -> CompressionCodec.decode(encoded.substring(0, encoded.length() / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompressionCodec.decode(CompressionCodec.COMPRESSED + "not base64"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,175 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.DatabaseSnapshot;
+import dev.isdn.demo.records_dto.app.domain.common.SnapshotStatistics;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteWithTags;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"},
+        classes = {App.class})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class DatabaseSnapshotTest {
+
+    @Autowired
+    DatabaseSnapshot databaseSnapshot;
+
+    @Autowired
+    NoteService noteService;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    @AfterEach
+    void tearDown() {
+        clear();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test snapshot export and load")
+    void testExportAndLoad() throws IOException, SQLException {
+        List<TagDto> tags = IntStream.range(0, 3)
+                .mapToObj(i -> tagService.createTag("snapshot_tag_" + i).orElseThrow())
+                .toList();
+        List<NoteDto> notes = IntStream.range(0, 10)
+                .mapToObj(i -> noteService.createNote("snapshot note " + i + " ü ✓ 😀 " + "x".repeat(i * 100))
+                        .orElseThrow())
+                .toList();
+        notes.forEach(note -> noteService.addTagToNoteById(note.id(), tags.get((int) (note.id() & 1)).id()));
+        noteService.addTagToNoteById(notes.get(0).id(), tags.get(2).id());
+        noteService.deleteNoteById(notes.get(9).id());
+        List<NoteWithTags> notesWithTags = noteService.getAllNotesWithTags();
+        List<TagDto> allTags = tagService.getAllTags();
+
+        Path path = directory.resolve("test.snapshot");
+        SnapshotStatistics exported = databaseSnapshot.export(path);
+        assertThat(exported).extracting(SnapshotStatistics::tags, SnapshotStatistics::notes,
+                SnapshotStatistics::links, SnapshotStatistics::tombstones)
+                .containsExactly(3L, 9L, 10L, 1L);
+        assertThat(exported.bytes()).isEqualTo(Files.size(path));
+        assertThat(directory.toFile().list()).as("no temporary files").containsExactly("test.snapshot");
+        assertThatThrownBy(() -> databaseSnapshot.load(path)).as("not empty")
+                .isInstanceOf(IllegalStateException.class);
+
+        clear();
+        SnapshotStatistics loaded = databaseSnapshot.load(path);
+        assertThat(loaded).extracting(SnapshotStatistics::tags, SnapshotStatistics::notes,
+                SnapshotStatistics::links, SnapshotStatistics::tombstones, SnapshotStatistics::bytes)
+                .containsExactly(3L, 9L, 10L, 1L, exported.bytes());
+        assertThat(noteService.getAllNotesWithTags()).containsExactlyInAnyOrderElementsOf(notesWithTags);
+        assertThat(tagService.getAllTags()).containsExactlyInAnyOrderElementsOf(allTags);
+        assertThat(jdbcTemplate.queryForObject("SELECT note_id FROM note_tombstones", Long.class))
+                .isEqualTo(notes.get(9).id());
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO note_tag (note_id, tag_id) VALUES (?, ?)",
+                notes.get(9).id(), tags.get(0).id())).as("referential integrity restored")
+                .hasMessageContaining("FOREIGN KEY");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test snapshot which is not valid")
+    void testInvalidSnapshot() throws IOException, SQLException {
+        NoteDto note = noteService.createNote("snapshot note").orElseThrow();
+        TagDto tag = tagService.createTag("snapshot_tag").orElseThrow();
+        noteService.addTagToNoteById(note.id(), tag.id());
+        Path path = directory.resolve("test.snapshot");
+        long size = databaseSnapshot.export(path).bytes();
+
+        clear();
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.copy(path, truncated);
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 20);
+        }
+        assertThatThrownBy(() -> databaseSnapshot.load(truncated)).isInstanceOf(IllegalStateException.class);
+        assertThat(noteService.getAllNotes()).as("rolled back").isEmpty();
+
+        Path other = directory.resolve("other.snapshot");
+        Files.writeString(other, "not a snapshot");
+        assertThatThrownBy(() -> databaseSnapshot.load(other)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(databaseSnapshot.load(path).links()).isEqualTo(1);
+        jdbcTemplate.update("DELETE FROM note_tag");
+        jdbcTemplate.update("DELETE FROM notes");
+        databaseSnapshot.export(path);
+        jdbcTemplate.update("DELETE FROM tags");
+        jdbcTemplate.update("DELETE FROM note_tombstones");
+        Files.write(path, patchedLinks(Files.readAllBytes(path), note.id(), tag.id()));
+        assertThatThrownBy(() -> databaseSnapshot.load(path)).as("link to a missing note")
+                .hasMessageContaining("missing");
+        assertThat(tagService.getAllTags()).as("rolled back").isEmpty();
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test snapshot load at startup")
+    void testLoadOnStartup() throws IOException, SQLException {
+        NoteDto note = noteService.createNote("snapshot note").orElseThrow();
+        Path path = directory.resolve("test.snapshot");
+        databaseSnapshot.export(path);
+        DatabaseSnapshot startup = new DatabaseSnapshot(dataSource, path.toString(), 100);
+
+        startup.afterSingletonsInstantiated();
+        assertThat(noteService.getAllNotes()).as("not empty, left as it is").containsExactly(note);
+
+        clear();
+        startup.afterSingletonsInstantiated();
+        assertThat(noteService.getAllNotes()).as("loaded").containsExactly(note);
+    }
+
+    /**
+     * Adds a link record to the empty section of links of a snapshot which has one tag and no notes.
+     */
+    private static byte[] patchedLinks(byte[] snapshot, long noteId, long tagId) {
+        java.nio.ByteBuffer source = java.nio.ByteBuffer.wrap(snapshot);
+        // header, tags section: ordinal, one record, end
+        int position = 2 * Integer.BYTES + Integer.BYTES;
+        position += Integer.BYTES + source.getInt(position) + Integer.BYTES;
+        // notes section: ordinal, end; links section: ordinal
+        position += 2 * Integer.BYTES + Integer.BYTES;
+        java.nio.ByteBuffer patched = java.nio.ByteBuffer.allocate(snapshot.length + Integer.BYTES + 2 * Long.BYTES);
+        patched.put(snapshot, 0, position)
+                .putInt(2 * Long.BYTES).putLong(noteId).putLong(tagId)
+                .put(snapshot, position, snapshot.length - position);
+        return patched.array();
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM note_tag");
+        jdbcTemplate.update("DELETE FROM notes");
+        jdbcTemplate.update("DELETE FROM tags");
+        jdbcTemplate.update("DELETE FROM note_tombstones");
+    }
+
+}
@@ -0,0 +1,53 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.LongIntMap;
+import org.junit.jupiter.api.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class LongIntMapTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if the map matches a HashMap")
+    void testRandomOperations() {
+        SplittableRandom random = new SplittableRandom(42);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // a narrow key range, so keys collide, repeat and are removed often
+            long key = 1 + random.nextLong(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, -1));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, -1));
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test if keys must be positive")
+    void testKeys() {
+        LongIntMap map = new LongIntMap();
+        assertThatThrownBy(() -> map.put(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(map.get(0)).isEqualTo(-1);
+        map.put(Long.MAX_VALUE, 1);
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo(1);
+        map.clear();
+        assertThat(map.size()).isZero();
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo(-1);
+    }
+
+}
@@ -0,0 +1,104 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"},
+        classes = {App.class})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class MetricsTest {
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    NoteService noteService;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test service timers and result counters")
+    void testServiceMetrics() {
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        long calls = calls("NoteService", "deleteNoteById");
+        double ok = results("deleteNoteById", "Ok");
+        double missing = results("deleteNoteById", "NoSuchElement");
+
+        assertThat(noteService.deleteNoteById(note.id())).isEqualTo(new Result.Ok());
+        assertThat(noteService.deleteNoteById(note.id())).isEqualTo(Result.NoSuchElement.note(note.id()));
+
+        assertThat(calls("NoteService", "deleteNoteById")).isEqualTo(calls + 2);
+        assertThat(results("deleteNoteById", "Ok")).isEqualTo(ok + 1);
+        assertThat(results("deleteNoteById", "NoSuchElement")).isEqualTo(missing + 1);
+        assertThat(registry.find("services.calls.percentile").tag("method", "deleteNoteById").gauges())
+                .as("p50, p99 and p999").hasSize(3);
+        assertThat(registry.find("spring.data.repository.invocations").tag("repository", "NoteRepository").timers())
+                .as("repository timers").isNotEmpty();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test transaction and ID generation timers")
+    void testTransactionMetrics() {
+        long commits = transactions("commit");
+        long rollbacks = transactions("rollback");
+        long ids = registry.find("ids.generated").timers().stream().mapToLong(Timer::count).sum();
+
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).isEqualTo(new Result.Done(note));
+        assertThatThrownBy(() -> tagService.deleteTagById(tag.id())).as("linked tag")
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(transactions("commit")).isGreaterThanOrEqualTo(commits + 3);
+        assertThat(transactions("rollback")).as("failed delete").isGreaterThanOrEqualTo(rollbacks + 1);
+        assertThat(registry.find("ids.generated").timers().stream().mapToLong(Timer::count).sum())
+                .isGreaterThanOrEqualTo(ids + 2);
+    }
+
+    private long calls(String className, String method) {
+        Timer timer = registry.find("services.calls").tags("class", className, "method", method, "exception", "none").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double results(String method, String result) {
+        Counter counter = registry.find("services.results").tags("method", method, "result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private long transactions(String outcome) {
+        Timer timer = registry.find("transactions").tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+}
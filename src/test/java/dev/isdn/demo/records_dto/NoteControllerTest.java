@@ -0,0 +1,102 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSyncPage;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"},
+        classes = {App.class})
+@AutoConfigureWebTestClient
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class NoteControllerTest {
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    NoteService noteService;
+
+    @AfterEach
+    void tearDown() {
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test sync of notes modified since a watermark")
+    void testNotesModifiedSince() {
+        NoteDto note = noteService.createNote("test note content").orElseThrow();
+
+        NoteSyncPage page = client.get().uri("/v1/notes?modifiedSince=0&limit=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(NoteSyncPage.class)
+                .returnResult().getResponseBody();
+        assertThat(page).isNotNull();
+        assertThat(page.items()).containsExactly(note);
+        assertThat(page.watermark()).isNotNull();
+
+        client.get().uri("/v1/notes?modifiedSince=" + (note.modified() + 10))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(NoteSyncPage.class)
+                .value(p -> assertThat(p.items()).as("watermark applied").isEmpty());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test watermark with unsupported variants of the notes list")
+    void testNotesModifiedSinceUnsupported() {
+        noteService.createNote("test note content");
+
+        List.of("view=summary", "view=summary&limit=10", "include=tags", "include=tags&limit=10")
+                .forEach(params -> client.get().uri("/v1/notes?modifiedSince=0&" + params)
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                        .expectBody(String.class)
+                        .value(body -> assertThat(body).as(params).contains("modifiedSince")));
+
+        List.of("", "&limit=10", "&view=summary")
+                .forEach(params -> client.get().uri("/v1/notes?modifiedSince=0" + params)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test variants of the notes list without a watermark")
+    void testNotesVariants() {
+        NoteDto note = noteService.createNote("test note content").orElseThrow();
+
+        List.of("", "?limit=10", "?view=summary", "?view=summary&limit=10", "?include=tags", "?include=tags&limit=10")
+                .forEach(params -> client.get().uri("/v1/notes" + params)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(String.class)
+                        .value(body -> assertThat(body).as(params).contains(String.valueOf(note.id()))));
+
+        client.get().uri("/v1/notes")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON);
+    }
+
+}
@@ -1,15 +1,36 @@
 package dev.isdn.demo.records_dto;
 
 import dev.isdn.demo.records_dto.app.domain.note.Note;
+import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
 import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
 import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSearchIndex;
 import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSummary;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSyncPage;
+import dev.isdn.demo.records_dto.app.domain.note.NoteTombstoneRepository;
+import dev.isdn.demo.records_dto.app.domain.common.CompressionCodec;
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.EntityVersionType;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
@@ -32,6 +53,18 @@ public class NoteServiceTest {
     @Autowired
     NoteService noteService;
 
+    @Autowired
+    NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    NoteSearchIndex searchIndex;
+
     @AfterEach
     void tearDown() {
         noteRepository.deleteAllInBatch();
@@ -107,7 +140,7 @@ public class NoteServiceTest {
         String content = "test note content", newContent = "new test note content";
         String nullContent = null;
         Optional<NoteDto> noteDto = noteService.createNote(content);
-        Optional<NoteDto> notValidNoteDto = Optional.of(new NoteDto(12345, 12345, 12345, content));
+        Optional<NoteDto> notValidNoteDto = Optional.of(new NoteDto(12345, 12345, 12345, content, 12345));
 
         assertThat(noteService.updateNoteContent(notValidNoteDto.orElseThrow(), newContent))
                 .as("passing not valid DTO record")
@@ -217,4 +250,329 @@ public class NoteServiceTest {
         assertThat(nullResult).as("result should be Error").isExactlyInstanceOf(Result.Error.class);
     }
 
+    @Test
+    @Order(8)
+    @DisplayName("Test stream all notes")
+    void testStreamAllNotes() {
+        int notesNum = 250;
+        String prefix = "test note content ";
+        IntStream.rangeClosed(1, notesNum).forEach(i -> noteService.createNote(prefix + i));
+
+        List<NoteDto> notes = noteService.streamAllNotes().collectList().block(Duration.ofSeconds(10));
+        assertThat(notes).as("streamed notes are the same as listed")
+                .containsExactlyInAnyOrderElementsOf(noteService.getAllNotes());
+
+        List<NoteDto> firstNotes = noteService.streamAllNotes().limitRate(2).take(5).collectList().block(Duration.ofSeconds(10));
+        assertThat(firstNotes).as("stream can be cancelled").hasSize(5);
+        assertThat(noteService.streamAllNotes().count().block(Duration.ofSeconds(10)))
+                .as("stream is available after cancellation").isEqualTo(notesNum);
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test get notes page by page")
+    void testGetNotesPage() {
+        int notesNum = 55, limit = 10;
+        IntStream.rangeClosed(1, notesNum).forEach(i -> noteService.createNote("test note content " + i));
+
+        List<NoteDto> notes = new ArrayList<>();
+        Cursor cursor = Cursor.FIRST;
+        int pages = 0;
+        while (cursor != null) {
+            CursorPage<NoteDto> page = noteService.getNotesPage(cursor, limit);
+            assertThat(page.items()).as("page size").hasSizeLessThanOrEqualTo(limit);
+            notes.addAll(page.items());
+            cursor = page.next() == null ? null : Cursor.decode.apply(page.next()).orElseThrow();
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(6);
+        assertThat(notes).as("pages contain all notes once")
+                .containsExactlyInAnyOrderElementsOf(noteService.getAllNotes())
+                .isSortedAccordingTo(Comparator.comparingLong(NoteDto::modified).thenComparingLong(NoteDto::id));
+        assertThat(Cursor.decode.apply("not a cursor")).isEmpty();
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Test notes batch creation")
+    void testCreateNotes() {
+        List<NoteContent> contents = new ArrayList<>();
+        IntStream.rangeClosed(1, 250).forEach(i -> contents.add(new NoteContent("test note content " + i)));
+        contents.add(new NoteContent(null));
+        contents.add(null);
+
+        List<Long> ids = noteService.createNotes(contents);
+
+        assertThat(ids).as("notes without content are skipped")
+                .hasSize(250)
+                .doesNotHaveDuplicates()
+                .allMatch(id -> id > 0);
+        assertThat(noteService.getAllNotes())
+                .extracting(NoteDto::id)
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(noteService.getNoteById(ids.get(0))).get()
+                .extracting(NoteDto::content)
+                .isEqualTo("test note content 1");
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Test if written notes match stored notes")
+    void testWrittenNoteState() {
+        NoteDto created = noteService.createNote("test note content").orElseThrow();
+        assertThat(noteService.getNoteById(created.id())).as("created note").contains(created);
+
+        NoteDto updated = noteService.updateNoteContent(created, "test note content updated").orElseThrow();
+        assertThat(updated.content()).isEqualTo("test note content updated");
+        assertThat(updated.modified()).isGreaterThanOrEqualTo(created.modified());
+        assertThat(noteService.getNoteById(created.id())).as("updated note").contains(updated);
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("Test note summaries")
+    void testNoteSummaries() {
+        String longContent = "\uD83D\uDCDD".repeat(Constants.NOTE_PREVIEW_LENGTH);
+        NoteDto shortNote = noteService.createNote("test note content").orElseThrow();
+        NoteDto longNote = noteService.createNote(longContent).orElseThrow();
+
+        assertThat(noteService.getAllNoteSummaries())
+                .containsExactlyInAnyOrder(
+                        new NoteSummary(shortNote.id(), shortNote.created(), shortNote.modified(),
+                                17, "test note content"),
+                        new NoteSummary(longNote.id(), longNote.created(), longNote.modified(),
+                                longContent.length(), longContent.substring(0, Constants.NOTE_PREVIEW_LENGTH))
+                );
+
+        noteService.updateNoteContent(longNote, "test note content updated");
+        CursorPage<NoteSummary> page = noteService.getNoteSummariesPage(Cursor.FIRST, 1);
+        List<NoteSummary> summaries = new ArrayList<>(page.items());
+        summaries.addAll(noteService.getNoteSummariesPage(Cursor.decode.apply(page.next()).orElseThrow(), 1).items());
+        assertThat(summaries).as("updated summary in pages")
+                .filteredOn(n -> n.id() == longNote.id())
+                .singleElement()
+                .satisfies(n -> {
+                    assertThat(n.length()).isEqualTo(25);
+                    assertThat(n.preview()).isEqualTo("test note content updated");
+                });
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Test if note content is stored compressed")
+    void testCompressedContent() {
+        String content = "test note content\n".repeat(100);
+        NoteDto note = noteService.createNote(content).orElseThrow();
+
+        String stored = jdbcTemplate.queryForObject("SELECT content FROM notes WHERE id = ?", String.class, note.id());
+        assertThat(stored).startsWith(String.valueOf(CompressionCodec.COMPRESSED))
+                .hasSizeLessThan(content.length() / 2);
+        assertThat(noteService.getNoteById(note.id())).get()
+                .extracting(NoteDto::content)
+                .isEqualTo(content);
+
+        String updated = "test note content updated\n".repeat(100);
+        assertThat(noteRepository.updateNoteContentById(note.id(), updated, note.modified() + 1)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT content FROM notes WHERE id = ?", String.class, note.id()))
+                .as("content updated by the query").startsWith(String.valueOf(CompressionCodec.COMPRESSED));
+        assertThat(noteService.getNoteById(note.id())).get()
+                .extracting(NoteDto::content)
+                .isEqualTo(updated);
+        assertThat(noteService.getAllNoteSummaries()).as("summary updated by the query")
+                .singleElement()
+                .satisfies(n -> {
+                    assertThat(n.length()).isEqualTo(updated.length());
+                    assertThat(n.preview()).isEqualTo(updated.substring(0, Constants.NOTE_PREVIEW_LENGTH));
+                });
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Test note content update by ID")
+    void testUpdateNoteContentById() {
+        NoteDto note = noteService.createNote("test note content").orElseThrow();
+
+        Result result = noteService.updateNoteContentById(note.id(), new NoteContent("test note content updated"));
+        assertThat(result).isInstanceOfSatisfying(Result.Done.class, r ->
+                assertThat(r.element()).isEqualTo(noteService.getNoteById(note.id()).orElseThrow()));
+        assertThat(noteService.updateNoteContentById(note.id(), new NoteContent(null))).isEqualTo(new Result.Error());
+        assertThat(noteService.updateNoteContentById(note.id() + 1, new NoteContent("test")))
+                .isEqualTo(Result.NoSuchElement.note(note.id() + 1));
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("Test note search")
+    void testSearchNotes() {
+        NoteDto note1 = noteService.createNote("Searching notes: the index ranks the notes").orElseThrow();
+        NoteDto note2 = noteService.createNote("An index of notes, and a lot of other words in the same note").orElseThrow();
+        NoteDto note3 = noteService.createNote("Nothing to find here").orElseThrow();
+        noteService.createNotes(List.of(new NoteContent("imported INDEX")));
+
+        assertThat(noteService.searchNotes("index", 10)).hasSize(3);
+        assertThat(noteService.searchNotes("Notes index", 10)).as("all words, ranked").containsExactly(note1, note2);
+        assertThat(noteService.searchNotes("notes index", 1)).containsExactly(note1);
+        assertThat(noteService.searchNoteSummaries("notes index", 10)).extracting(NoteSummary::id)
+                .containsExactly(note1.id(), note2.id());
+        assertThat(noteService.searchNotes("index missing", 10)).isEmpty();
+        assertThat(noteService.searchNotes(" ,. ", 10)).isEmpty();
+
+        NoteDto updated = noteService.updateNoteContent(note3, "Found the index here").orElseThrow();
+        assertThat(noteService.searchNotes("index here", 10)).containsExactly(updated);
+        assertThat(noteService.searchNotes("nothing", 10)).isEmpty();
+
+        assertThat(noteService.deleteNote(note1)).isInstanceOf(Result.Ok.class);
+        assertThat(noteService.searchNotes("notes index", 10)).containsExactly(note2);
+
+        noteRepository.deleteAllInBatch();
+        assertThat(noteService.searchNotes("index", 10)).as("deleted past the service").isEmpty();
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("Test note version")
+    void testNoteVersion() {
+        NoteDto note = noteService.createNote("test note content").orElseThrow();
+
+        assertThat(note.version()).isPositive();
+        assertThat(noteService.getNoteById(note.id())).get().extracting(NoteDto::version).isEqualTo(note.version());
+        assertThat(QueryBudget.assertQueries(1, () -> noteService.getNoteVersion(note.id()))).contains(note.version());
+
+        // updates in the same millisecond still get distinct versions
+        NoteDto updated = noteService.updateNoteContent(note, "test note content updated").orElseThrow();
+        assertThat(updated.version()).isGreaterThan(note.version());
+        NoteDto updatedAgain = noteService.updateNoteContent(updated, "test note content updated again").orElseThrow();
+        assertThat(updatedAgain.version()).isGreaterThan(updated.version());
+        assertThat(noteService.getNoteVersion(note.id())).contains(updatedAgain.version());
+        assertThat(noteRepository.updateNoteContentById(note.id(), "test note content", note.modified())).isOne();
+        assertThat(noteService.getNoteVersion(note.id()).orElseThrow()).as("bulk update").isGreaterThan(updatedAgain.version());
+        assertThat(noteService.getNoteVersion(note.id() + 1)).isEmpty();
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Test notes modified since a watermark")
+    void testNotesModifiedSince() {
+        tombstoneRepository.deleteAllInBatch();
+        long now = Instant.now().getEpochSecond();
+        NoteDto first = noteService.createNote("first note").orElseThrow();
+        NoteDto second = noteService.createNote("second note").orElseThrow();
+        NoteDto third = noteService.createNote("third note").orElseThrow();
+        jdbcTemplate.update("UPDATE notes SET modified = ? WHERE id = ?", now - 100, first.id());
+        jdbcTemplate.update("UPDATE notes SET modified = ? WHERE id IN (?, ?)", now - 50, second.id(), third.id());
+        List<Long> sameSecond = List.of(Math.min(second.id(), third.id()), Math.max(second.id(), third.id()));
+
+        NoteSyncPage page = noteService.getNotesModifiedSince(0, Cursor.FIRST, 2).orElseThrow();
+        assertThat(page.items()).extracting(NoteDto::id).containsExactly(first.id(), sameSecond.get(0));
+        assertThat(page.next()).isNotNull();
+        assertThat(page.deleted()).isEmpty();
+        assertThat(page.watermark()).as("not before the last page").isNull();
+        page = noteService.getNotesModifiedSince(0, Cursor.decode.apply(page.next()).orElseThrow(), 2).orElseThrow();
+        assertThat(page.items()).extracting(NoteDto::id).containsExactly(sameSecond.get(1));
+        assertThat(page.next()).isNull();
+        assertThat(page.watermark()).isBetween(now - 10, Instant.now().getEpochSecond());
+
+        assertThat(noteService.getNotesModifiedSince(now - 50, Cursor.FIRST, 10)).get()
+                .extracting(NoteSyncPage::items).asList().extracting("id").containsExactlyElementsOf(sameSecond);
+
+        noteService.deleteNoteById(second.id());
+        noteService.updateNoteContent(first, "first note updated");
+        page = noteService.getNotesModifiedSince(now - 50, Cursor.FIRST, 10).orElseThrow();
+        assertThat(page.items()).extracting(NoteDto::id).containsExactly(third.id(), first.id());
+        assertThat(page.deleted()).containsExactly(second.id());
+        assertThat(page.watermark()).isGreaterThanOrEqualTo(now - 50);
+        assertThat(noteService.getNotesModifiedSince(now - Duration.ofDays(31).toSeconds(), Cursor.FIRST, 10))
+                .as("deletions purged").isEmpty();
+
+        jdbcTemplate.update("UPDATE note_tombstones SET deleted = ?", now - 20);
+        page = noteService.getNotesModifiedSince(now - 50, Cursor.FIRST, 1).orElseThrow();
+        assertThat(page.items()).extracting(NoteDto::id).containsExactly(third.id());
+        assertThat(page.deleted()).isEmpty();
+        page = noteService.getNotesModifiedSince(now - 50, Cursor.decode.apply(page.next()).orElseThrow(), 1).orElseThrow();
+        assertThat(page.items()).isEmpty();
+        assertThat(page.deleted()).as("deletions paged with the notes").containsExactly(second.id());
+        assertThat(page.watermark()).isNull();
+        page = noteService.getNotesModifiedSince(now - 50, Cursor.decode.apply(page.next()).orElseThrow(), 1).orElseThrow();
+        assertThat(page.items()).extracting(NoteDto::id).containsExactly(first.id());
+        assertThat(page.next()).isNull();
+
+        jdbcTemplate.update("UPDATE note_tombstones SET deleted = ?", now - Duration.ofDays(31).toSeconds());
+        assertThat(noteService.purgeTombstones()).isEqualTo(1);
+        assertThat(noteService.getNotesModifiedSince(now - 50, Cursor.FIRST, 10)).get()
+                .extracting(NoteSyncPage::deleted).asList().isEmpty();
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Test note search after concurrent updates indexed out of commit order")
+    void testSearchConcurrentUpdates() throws Exception {
+        NoteDto note = noteService.createNote("original words").orElseThrow();
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch overtaken = new CountDownLatch(1);
+        CompletableFuture<NoteDto> first = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    // registered first, so it holds back the index callback of the update
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            committed.countDown();
+                            try {
+                                overtaken.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                    return noteService.updateNoteContent(note, "first words").orElseThrow();
+                }));
+        assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        NoteDto second = noteService.updateNoteContent(note, "second words").orElseThrow();
+        overtaken.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).version()).isLessThan(second.version());
+
+        assertThat(noteService.searchNotes("words", 10)).containsExactly(second);
+        assertThat(noteService.searchNotes("first", 10)).as("older update indexed last").isEmpty();
+
+        CountDownLatch deleted = new CountDownLatch(1);
+        CountDownLatch removed = new CountDownLatch(1);
+        CompletableFuture<NoteDto> third = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            deleted.countDown();
+                            try {
+                                removed.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                    return noteService.updateNoteContent(note, "third words").orElseThrow();
+                }));
+        assertThat(deleted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(noteService.deleteNoteById(note.id())).isEqualTo(new Result.Ok());
+        removed.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        assertThat(searchIndex.search("third", 10)).as("update indexed after the delete").doesNotContain(note.id());
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("Test note search index load after concurrent changes")
+    void testSearchIndexLoad() {
+        NoteDto changed = noteService.createNote("loaded words").orElseThrow();
+        NoteDto removed = noteService.createNote("loaded words").orElseThrow();
+        searchIndex.putAfterCommit(changed.id(), "changed words", changed.version() + 1);
+        searchIndex.removeAfterCommit(removed.id(), EntityVersionType.nextVersion());
+
+        searchIndex.load();
+        assertThat(searchIndex.search("changed", 10)).as("newer than the loaded note").containsExactly(changed.id());
+        assertThat(searchIndex.search("loaded", 10)).as("older than the index")
+                .doesNotContain(changed.id(), removed.id());
+    }
+
 }
@@ -1,16 +1,33 @@
 package dev.isdn.demo.records_dto;
 
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
 import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
 import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
 import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteSummary;
+import dev.isdn.demo.records_dto.app.domain.note.NoteTagIndex;
+import dev.isdn.demo.records_dto.app.domain.note.NoteWithTags;
+import dev.isdn.demo.records_dto.app.domain.note.TagExpression;
 import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
 import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
 import dev.isdn.demo.records_dto.app.domain.tag.TagService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,6 +54,12 @@ public class NoteTagServicesTest {
     @Autowired
     NoteService noteService;
 
+    @Autowired
+    NoteTagIndex tagIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @AfterEach
     void tearDown() {
         tagRepository.deleteAllInBatch();
@@ -335,4 +358,295 @@ public class NoteTagServicesTest {
                 .hasSize(0);
     }
 
+    @Test
+    @Order(7)
+    @DisplayName("Test get notes of a tag and tags of a note page by page")
+    void testGetPages() {
+        int num = 25, limit = 10;
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        IntStream.range(0, num).forEach(i -> {
+            noteService.addTagToNote(noteService.createNote("test note " + i).orElseThrow(), tag);
+            noteService.addTagToNote(note, tagService.createTag("test_tag_" + i).orElseThrow());
+        });
+
+        CursorPage<NoteDto> notesPage = noteService.getTagNotesPage(tag, Cursor.FIRST, limit);
+        List<NoteDto> notes = new ArrayList<>(notesPage.items());
+        while (notesPage.next() != null) {
+            notesPage = noteService.getTagNotesPage(tag, Cursor.decode.apply(notesPage.next()).orElseThrow(), limit);
+            notes.addAll(notesPage.items());
+        }
+        assertThat(notes).as("tag notes pages")
+                .containsExactlyInAnyOrderElementsOf(noteService.getTagNotes(tag))
+                .hasSize(num);
+
+        CursorPage<TagDto> tagsPage = tagService.getNoteTagsPage(note, Cursor.FIRST, limit);
+        List<TagDto> tags = new ArrayList<>(tagsPage.items());
+        while (tagsPage.next() != null) {
+            tagsPage = tagService.getNoteTagsPage(note, Cursor.decode.apply(tagsPage.next()).orElseThrow(), limit);
+            tags.addAll(tagsPage.items());
+        }
+        assertThat(tags).as("note tags pages")
+                .containsExactlyInAnyOrderElementsOf(tagService.getNoteTags(note))
+                .hasSize(num);
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test note summaries of a tag")
+    void testTagNoteSummaries() {
+        int num = 15, limit = 10;
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        IntStream.range(0, num).forEach(i ->
+                noteService.addTagToNote(noteService.createNote("test note " + i).orElseThrow(), tag));
+        noteService.createNote("test note without tag");
+
+        List<NoteSummary> summaries = noteService.getTagNoteSummaries(tag);
+        assertThat(summaries).as("tag note summaries")
+                .extracting(NoteSummary::id)
+                .containsExactlyInAnyOrderElementsOf(noteService.getTagNotes(tag).stream().map(NoteDto::id).toList());
+
+        CursorPage<NoteSummary> page = noteService.getTagNoteSummariesPage(tag, Cursor.FIRST, limit);
+        List<NoteSummary> pages = new ArrayList<>(page.items());
+        page = noteService.getTagNoteSummariesPage(tag, Cursor.decode.apply(page.next()).orElseThrow(), limit);
+        pages.addAll(page.items());
+        assertThat(page.next()).isNull();
+        assertThat(pages).as("tag note summaries pages")
+                .containsExactlyInAnyOrderElementsOf(summaries);
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test add and delete tags of missing notes and tags")
+    void testMissingNoteTags() {
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        NoteDto missingNote = new NoteDto(note.id() + 1, note.created(), note.modified(), note.content(), note.version());
+        TagDto missingTag = new TagDto(tag.id() + 1, "test_tag_missing", tag.color(), tag.version());
+
+        assertThat(noteService.addTagToNote(note, missingTag)).as("missing tag").isEmpty();
+        assertThat(noteService.addTagToNote(missingNote, tag)).as("missing note").isEmpty();
+        assertThat(noteService.deleteTagFromNote(missingNote, tag)).as("missing note").isEmpty();
+        assertThat(noteService.addTagToNote(note, tag)).as("existing note and tag").contains(note);
+        assertThat(tagService.getNoteTags(note)).containsExactly(tag);
+        assertThat(noteService.getTagNotes(tag)).containsExactly(note);
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Test add and delete tags of notes by IDs")
+    void testNoteTagsById() {
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        long missingId = note.id() + tag.id();
+
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).isEqualTo(new Result.Done(note));
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).as("linked tag").isEqualTo(new Result.Error());
+        assertThat(noteService.addTagToNoteById(missingId, tag.id())).isEqualTo(Result.NoSuchElement.note(missingId));
+        assertThat(noteService.addTagToNoteById(note.id(), missingId)).isEqualTo(Result.NoSuchElement.tag(missingId));
+        assertThat(noteService.addTagToNoteById(note.id(), note.id())).as("tag with the ID of the note")
+                .isEqualTo(Result.NoSuchElement.tag(note.id()));
+        assertThat(tagService.getNoteTags(note)).containsExactly(tag);
+
+        assertThat(noteService.deleteTagFromNoteById(note.id(), missingId)).isEqualTo(Result.NoSuchElement.tag(missingId));
+        assertThat(noteService.deleteTagFromNoteById(note.id(), tag.id())).isEqualTo(new Result.Done(note));
+        assertThat(noteService.deleteTagFromNoteById(note.id(), tag.id())).as("unlinked tag").isEqualTo(new Result.Error());
+        assertThat(tagService.getNoteTags(note)).isEmpty();
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Test query notes by tag expressions")
+    void testQueryNotes() {
+        int num = 30, limit = 4;
+        TagDto even = tagService.createTag("test_tag_even").orElseThrow();
+        TagDto third = tagService.createTag("test_tag_third").orElseThrow();
+        TagDto fifth = tagService.createTag("test_tag_fifth").orElseThrow();
+        List<NoteDto> notes = IntStream.range(0, num)
+                .mapToObj(i -> noteService.createNote("test note " + i).orElseThrow())
+                .toList();
+        IntStream.range(0, num).forEach(i -> {
+            if (i % 2 == 0) noteService.addTagToNote(notes.get(i), even);
+            if (i % 3 == 0) noteService.addTagToNoteById(notes.get(i).id(), third.id());
+            if (i % 5 == 0) noteService.addTagToNote(notes.get(i), fifth);
+        });
+
+        assertThat(TagExpression.parse("1 AND (2 or 3) & !4")).contains(new TagExpression.And(
+                new TagExpression.And(new TagExpression.Tag(1),
+                        new TagExpression.Or(new TagExpression.Tag(2), new TagExpression.Tag(3))),
+                new TagExpression.Not(new TagExpression.Tag(4))));
+        List.of("", "1 AND", "(1 OR 2", "1 2", "ANDNOT 1", "-1", "99999999999999999999")
+                .forEach(text -> assertThat(TagExpression.parse(text)).as(text).isEmpty());
+
+        String query = even.id() + " AND NOT (" + third.id() + " OR " + fifth.id() + ")";
+        assertThat(queryAll(query, limit)).as(query)
+                .containsExactlyElementsOf(ids(notes, i -> i % 2 == 0 && i % 3 != 0 && i % 5 != 0));
+        query = third.id() + " | " + fifth.id();
+        assertThat(queryAll(query, limit)).as(query)
+                .containsExactlyElementsOf(ids(notes, i -> i % 3 == 0 || i % 5 == 0));
+        query = "NOT " + even.id();
+        assertThat(queryAll(query, limit)).as(query)
+                .containsExactlyElementsOf(ids(notes, i -> i % 2 != 0));
+
+        CursorPage<NoteSummary> summaries = noteService.queryNoteSummaries(parse(fifth.id() + ""), Cursor.FIRST, limit);
+        assertThat(summaries.items()).extracting(NoteSummary::id)
+                .containsExactlyElementsOf(ids(notes, i -> i % 5 == 0).subList(0, limit));
+        assertThat(summaries.next()).isNotNull();
+
+        noteService.deleteTagFromNoteById(notes.get(0).id(), even.id());
+        noteService.deleteNoteById(notes.get(2).id());
+        noteRepository.deleteById(notes.get(4).id());
+        assertThat(queryAll(even.id() + "", limit)).as("unlinked and deleted notes")
+                .containsExactlyElementsOf(ids(notes, i -> i % 2 == 0 && i > 4));
+
+        ids(notes, i -> i % 5 == 0).forEach(id -> noteService.deleteTagFromNoteById(id, fifth.id()));
+        assertThat(tagService.deleteTagById(fifth.id())).isEqualTo(new Result.Ok());
+        assertThat(queryAll(fifth.id() + "", limit)).as("deleted tag").isEmpty();
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("Test notes with tags")
+    void testNotesWithTags() {
+        int num = 12, limit = 5;
+        TagDto tag1 = tagService.createTag("test_tag_1").orElseThrow();
+        TagDto tag2 = tagService.createTag("test_tag_2").orElseThrow();
+        List<NoteDto> notes = IntStream.range(0, num)
+                .mapToObj(i -> noteService.createNote("test note " + i).orElseThrow())
+                .toList();
+        IntStream.range(0, num).forEach(i -> {
+            if (i % 2 == 0) noteService.addTagToNote(notes.get(i), tag1);
+            if (i % 3 == 0) noteService.addTagToNote(notes.get(i), tag2);
+        });
+
+        List<NoteWithTags> all = noteService.getAllNotesWithTags();
+        assertThat(all).hasSize(num);
+        all.forEach(n -> assertThat(n.tags()).as("tags of " + n.content())
+                .containsExactlyInAnyOrderElementsOf(tagService.getNoteTags(noteService.getNoteById(n.id()).orElseThrow())));
+        assertThat(all).filteredOn(n -> n.tags().isEmpty()).hasSize(4);
+
+        CursorPage<NoteWithTags> page = noteService.getNotesWithTagsPage(Cursor.FIRST, limit);
+        List<NoteWithTags> pages = new ArrayList<>(page.items());
+        while (page.next() != null) {
+            page = noteService.getNotesWithTagsPage(Cursor.decode.apply(page.next()).orElseThrow(), limit);
+            pages.addAll(page.items());
+        }
+        assertThat(pages).as("pages of notes with tags").containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Test query notes after concurrent link changes indexed out of commit order")
+    void testQueryConcurrentLinks() throws Exception {
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+        TagDto tag = tagService.createTag("test_tag_1").orElseThrow();
+        String query = tag.id() + "";
+
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch overtaken = new CountDownLatch(1);
+        CompletableFuture<Result> linked = indexedLate(committed, overtaken,
+                () -> noteService.addTagToNoteById(note.id(), tag.id()));
+        assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(noteService.deleteTagFromNoteById(note.id(), tag.id())).isInstanceOf(Result.Done.class);
+        overtaken.countDown();
+        assertThat(linked.get(5, TimeUnit.SECONDS)).isInstanceOf(Result.Done.class);
+        assertThat(queryAll(query, 10)).as("link indexed after the unlink").isEmpty();
+
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).isInstanceOf(Result.Done.class);
+        CountDownLatch unlinkCommitted = new CountDownLatch(1);
+        CountDownLatch unlinkOvertaken = new CountDownLatch(1);
+        CompletableFuture<Result> unlinked = indexedLate(unlinkCommitted, unlinkOvertaken,
+                () -> noteService.deleteTagFromNoteById(note.id(), tag.id()));
+        assertThat(unlinkCommitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).isInstanceOf(Result.Done.class);
+        unlinkOvertaken.countDown();
+        assertThat(unlinked.get(5, TimeUnit.SECONDS)).isInstanceOf(Result.Done.class);
+        assertThat(queryAll(query, 10)).as("unlink indexed after the link").containsExactly(note.id());
+
+        TagDto another = tagService.createTag("test_tag_3").orElseThrow();
+        CountDownLatch otherCommitted = new CountDownLatch(1);
+        CountDownLatch otherOvertaken = new CountDownLatch(1);
+        CompletableFuture<Result> linkedAnother = indexedLate(otherCommitted, otherOvertaken,
+                () -> noteService.addTagToNoteById(note.id(), another.id()));
+        assertThat(otherCommitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(noteService.deleteTagFromNoteById(note.id(), tag.id())).isInstanceOf(Result.Done.class);
+        otherOvertaken.countDown();
+        assertThat(linkedAnother.get(5, TimeUnit.SECONDS)).isInstanceOf(Result.Done.class);
+        assertThat(queryAll(another.id() + "", 10)).as("link of another tag indexed late").containsExactly(note.id());
+        assertThat(noteService.deleteTagFromNoteById(note.id(), another.id())).isInstanceOf(Result.Done.class);
+        assertThat(noteService.addTagToNoteById(note.id(), tag.id())).isInstanceOf(Result.Done.class);
+
+        CountDownLatch deleteCommitted = new CountDownLatch(1);
+        CountDownLatch deleteOvertaken = new CountDownLatch(1);
+        TagDto other = tagService.createTag("test_tag_2").orElseThrow();
+        CompletableFuture<Result> linkedOther = indexedLate(deleteCommitted, deleteOvertaken,
+                () -> noteService.addTagToNoteById(note.id(), other.id()));
+        assertThat(deleteCommitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(noteService.deleteTagFromNoteById(note.id(), other.id())).isInstanceOf(Result.Done.class);
+        assertThat(tagService.deleteTagById(other.id())).isEqualTo(new Result.Ok());
+        deleteOvertaken.countDown();
+        assertThat(linkedOther.get(5, TimeUnit.SECONDS)).isInstanceOf(Result.Done.class);
+        assertThat(tagIndex.query(parse(other.id() + ""), 0, 10)).as("link indexed after the tag removal").isEmpty();
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Test reload of the note tag index")
+    void testLoadNoteTagIndex() {
+        TagDto tag = tagService.createTag("test_tag_1").orElseThrow();
+        List<NoteDto> notes = IntStream.range(0, 3)
+                .mapToObj(i -> noteService.createNote("test note " + i).orElseThrow())
+                .toList();
+        notes.forEach(note -> noteService.addTagToNoteById(note.id(), tag.id()));
+        noteRepository.deleteById(notes.get(0).id());
+
+        tagIndex.load();
+        assertThat(tagIndex.size()).as("deleted past the service").isEqualTo(notes.size() - 1);
+        assertThat(tagIndex.query(parse(tag.id() + ""), 0, 10)).extracting(NoteTagIndex.Match::id)
+                .containsExactlyInAnyOrderElementsOf(ids(notes, i -> i > 0));
+    }
+
+    /**
+     * Runs the work in a transaction whose index callbacks wait after its commit until they are overtaken.
+     */
+    private CompletableFuture<Result> indexedLate(CountDownLatch committed, CountDownLatch overtaken,
+                                                  Supplier<Result> work) {
+        return CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    // registered first, so it holds back the index callbacks of the work
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            committed.countDown();
+                            try {
+                                overtaken.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                    return work.get();
+                }));
+    }
+
+    private List<Long> queryAll(String query, int limit) {
+        TagExpression expression = parse(query);
+        CursorPage<Long> page = noteService.queryNoteIds(expression, Cursor.FIRST, limit);
+        List<Long> ids = new ArrayList<>(page.items());
+        while (page.next() != null) {
+            assertThat(page.items()).hasSize(limit);
+            page = noteService.queryNoteIds(expression, Cursor.decode.apply(page.next()).orElseThrow(), limit);
+            ids.addAll(page.items());
+        }
+        return ids;
+    }
+
+    private static TagExpression parse(String query) {
+        return TagExpression.parse(query).orElseThrow();
+    }
+
+    private static List<Long> ids(List<NoteDto> notes, IntPredicate filter) {
+        return IntStream.range(0, notes.size()).filter(filter).mapToObj(i -> notes.get(i).id()).toList();
+    }
+
 }
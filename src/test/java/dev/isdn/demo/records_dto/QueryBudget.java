@@ -0,0 +1,38 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.QueryCounter;
+import dev.isdn.demo.records_dto.app.domain.common.QueryStatistics;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails a test when an operation runs more JDBC statements than its budget, so N+1 queries are caught by tests.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {}
+
+    public static <T> T assertQueries(int budget, Supplier<T> operation) {
+        QueryCounter counter = QueryCounter.start();
+        T result;
+        QueryStatistics statistics;
+        try {
+            result = operation.get();
+        } finally {
+            statistics = counter.stop();
+        }
+        assertThat(statistics.count())
+                .as("JDBC statements, the slowest (%.3f ms): %s", statistics.slowestMs(), statistics.slowest())
+                .isLessThanOrEqualTo(budget);
+        return result;
+    }
+
+    public static void assertQueries(int budget, Runnable operation) {
+        assertQueries(budget, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+}
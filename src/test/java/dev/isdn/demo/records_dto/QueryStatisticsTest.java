@@ -0,0 +1,96 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.QueryCounter;
+import dev.isdn.demo.records_dto.app.domain.common.QueryStatistics;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static dev.isdn.demo.records_dto.QueryBudget.assertQueries;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"},
+        classes = {App.class})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class QueryStatisticsTest {
+
+    @Autowired
+    NoteService noteService;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test statements counted by nested counters")
+    void testNestedCounters() {
+        NoteDto note = noteService.createNote("test note").orElseThrow();
+
+        QueryCounter outer = QueryCounter.start();
+        QueryCounter inner = QueryCounter.start();
+        noteService.getNoteById(note.id());
+        QueryStatistics innerStatistics = inner.stop();
+        noteService.getNoteById(note.id());
+        QueryStatistics outerStatistics = outer.stop();
+        noteService.getNoteById(note.id());
+
+        assertThat(innerStatistics.count()).isEqualTo(1);
+        assertThat(innerStatistics.slowest()).containsIgnoringCase("select");
+        assertThat(outerStatistics.count()).isEqualTo(2);
+        assertThat(outerStatistics.timeNanos()).isGreaterThanOrEqualTo(innerStatistics.timeNanos());
+        assertThat(outer.statistics()).as("stopped counter").isEqualTo(outerStatistics);
+        assertThat(QueryCounter.isActive()).isFalse();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test query budgets of note and tag operations")
+    void testQueryBudgets() {
+        TagDto tag = tagService.createTag("test_tag").orElseThrow();
+        List<NoteDto> notes = IntStream.range(0, 50)
+                .mapToObj(i -> noteService.createNote("test note " + i).orElseThrow())
+                .toList();
+        NoteDto note = notes.get(0);
+
+        assertThat(assertQueries(3, () -> noteService.addTagToNoteById(note.id(), tag.id())))
+                .isEqualTo(new Result.Done(note));
+        assertQueries(3, () -> noteService.deleteTagFromNoteById(note.id(), tag.id()));
+        notes.forEach(n -> noteService.addTagToNote(n, tag));
+
+        // the tags of a page are read by one query, whatever the page size
+        assertQueries(2, () -> noteService.getNotesWithTagsPage(Cursor.FIRST, 5));
+        assertThat(assertQueries(2, () -> noteService.getNotesWithTagsPage(Cursor.FIRST, 50)).items())
+                .allSatisfy(n -> assertThat(n.tags()).containsExactly(tag));
+        assertQueries(2, () -> noteService.getAllNotesWithTags());
+
+        assertThatThrownBy(() -> assertQueries(2, () -> notes.forEach(n -> tagService.getNoteTags(n))))
+                .as("N+1 queries")
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("JDBC statements");
+    }
+
+}
@@ -0,0 +1,96 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteService;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagContent;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"
+                // a database of its own, the schema is created by this context
+                ,"spring.datasource.url=jdbc:h2:mem:reactive_web;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+                ,"r2dbc.url=r2dbc:h2:mem:///reactive_web?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        },
+        classes = {App.class})
+@ActiveProfiles("r2dbc")
+@AutoConfigureWebTestClient
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReactiveControllerTest {
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    ReactiveNoteService noteService;
+
+    @Autowired
+    ReactiveTagService tagService;
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test reactive notes list and its unsupported variants")
+    void testNotesList() {
+        NoteDto note = noteService.createNote(new NoteContent("reactive note")).block();
+        assertThat(note).isNotNull();
+
+        client.get().uri("/v1/notes")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(NoteDto.class).contains(note).hasSize(1);
+
+        List.of("limit=10", "cursor=AAAAAGNHXI52ZcZhvQ5fNQ", "view=summary", "include=tags", "modifiedSince=0",
+                        "view=summary&limit=10")
+                .forEach(params -> client.get().uri("/v1/notes?" + params)
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                        .expectBody(String.class)
+                        .value(body -> assertThat(body).as(params).contains(params.substring(0, params.indexOf('=')))));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test reactive tags list and its unsupported variants")
+    void testTagsList() {
+        TagDto tag = tagService.createTag(new TagContent("tag_1", null)).block();
+        assertThat(tag).isNotNull();
+
+        client.get().uri("/v1/tags")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TagDto.class).contains(tag).hasSize(1);
+
+        List.of("limit=10", "cursor=AAAAAGNHXI52ZcZhvQ5fNQ")
+                .forEach(params -> client.get().uri("/v1/tags?" + params)
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                        .expectBody(String.class)
+                        .value(body -> assertThat(body).as(params).contains(params.substring(0, params.indexOf('=')))));
+    }
+
+}
@@ -0,0 +1,195 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Result;
+import dev.isdn.demo.records_dto.app.domain.note.NoteContent;
+import dev.isdn.demo.records_dto.app.domain.note.NoteDto;
+import dev.isdn.demo.records_dto.app.domain.note.NoteRepository;
+import dev.isdn.demo.records_dto.app.domain.note.NoteService;
+import dev.isdn.demo.records_dto.app.domain.note.NoteTombstoneRepository;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteService;
+import dev.isdn.demo.records_dto.app.domain.note.ReactiveNoteRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.ReactiveTagService;
+import dev.isdn.demo.records_dto.app.domain.tag.TagContent;
+import dev.isdn.demo.records_dto.app.domain.tag.TagDto;
+import dev.isdn.demo.records_dto.app.domain.tag.TagNameIndex;
+import dev.isdn.demo.records_dto.app.domain.tag.TagRepository;
+import dev.isdn.demo.records_dto.app.domain.tag.TagService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        properties = {"spring.config.name=test-config"
+                // a database of its own, the schema is created by this context
+                ,"spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+                ,"r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        },
+        classes = {App.class})
+@ActiveProfiles("r2dbc")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReactiveServicesTest {
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    ReactiveTagService reactiveTagService;
+
+    @Autowired
+    ReactiveTagRepository reactiveTagRepository;
+
+    @Autowired
+    TagNameIndex nameIndex;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    NoteService noteService;
+
+    @Autowired
+    ReactiveNoteService reactiveNoteService;
+
+    @Autowired
+    ReactiveNoteRepository reactiveNoteRepository;
+
+    @Autowired
+    NoteTombstoneRepository tombstoneRepository;
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        noteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test reactive create and read")
+    void testCreateAndRead() {
+        String content = "reactive note ".repeat(100);
+        NoteDto note = reactiveNoteService.createNote(new NoteContent(content)).block();
+        assertThat(note).isNotNull();
+        assertThat(note.id()).isPositive();
+        assertThat(reactiveNoteService.getNoteById(note.id()).block()).isEqualTo(note);
+        assertThat(noteService.getNoteById(note.id())).as("written past JPA").contains(note);
+        assertThat(reactiveNoteService.createNote(new NoteContent(null)).blockOptional()).isEmpty();
+
+        NoteDto jpaNote = noteService.createNote("jpa note").orElseThrow();
+        assertThat(reactiveNoteService.getAllNotes().collectList().block()).containsExactlyInAnyOrder(note, jpaNote);
+
+        TagDto tag = reactiveTagService.createTag(new TagContent("reactive_tag", null)).block();
+        assertThat(tag).isNotNull();
+        assertThat(tag.color()).isEqualTo(Constants.DEFAULT_COLOR);
+        assertThat(tagService.getTagById(tag.id())).contains(tag);
+        assertThat(reactiveTagService.createTag(new TagContent("reactive_tag", "AAAAAA")).blockOptional())
+                .as("name is taken").isEmpty();
+        assertThat(reactiveTagService.createTag(new TagContent("reactive#tag", null)).blockOptional()).isEmpty();
+        assertThat(reactiveTagService.createTag(new TagContent("reactive_tag_2", "AAAAA>")).blockOptional()).isEmpty();
+        assertThat(tagService.createTag("reactive_tag")).as("name is taken for JPA").isEmpty();
+        assertThat(reactiveTagService.getAllTags().collectList().block()).containsExactly(tag);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test reactive updates by ID")
+    void testUpdatesById() {
+        NoteDto note = reactiveNoteService.createNote(new NoteContent("note")).block();
+        assertThat(note).isNotNull();
+        assertThat(reactiveNoteService.updateNoteContentById(note.id(), new NoteContent("updated")).block())
+                .isInstanceOfSatisfying(Result.Done.class, res -> assertThat(((NoteDto) res.element()).content())
+                        .isEqualTo("updated"));
+        assertThat(noteService.getNoteById(note.id())).map(NoteDto::content).contains("updated");
+        assertThat(reactiveNoteService.updateNoteContentById(note.id(), new NoteContent(null)).block())
+                .isInstanceOf(Result.Error.class);
+        assertThat(reactiveNoteService.updateNoteContentById(1, new NoteContent("updated")).block())
+                .isEqualTo(Result.NoSuchElement.note(1));
+
+        TagDto tag = reactiveTagService.createTag(new TagContent("tag_1", null)).block();
+        TagDto other = tagService.createTag("tag_2").orElseThrow();
+        assertThat(tag).isNotNull();
+        assertThat(tagService.getTagById(tag.id())).as("cached").contains(tag);
+        Result updated = reactiveTagService.updateTagContentById(tag.id(), new TagContent("tag_3", "aaaaaa")).block();
+        assertThat(updated).isInstanceOf(Result.Done.class);
+        TagDto updatedTag = (TagDto) ((Result.Done) updated).element();
+        assertThat(updatedTag).isEqualTo(new TagDto(tag.id(), "tag_3", "AAAAAA", updatedTag.version()));
+        assertThat(tagService.getTagById(tag.id())).as("invalidated").contains(updatedTag);
+        assertThat(reactiveTagService.updateTagContentById(tag.id(), new TagContent(other.name(), "aaaaaa")).block())
+                .as("name is taken").isInstanceOf(Result.Error.class);
+        assertThat(reactiveTagService.updateTagContentById(tag.id(), new TagContent("tag_4", null)).block())
+                .as("color is required").isInstanceOf(Result.Error.class);
+        assertThat(reactiveTagService.updateTagContentById(1, new TagContent("tag_4", "aaaaaa")).block())
+                .isEqualTo(Result.NoSuchElement.tag(1));
+        assertThat(QueryBudget.assertQueries(0, () -> nameIndex.isFree("tag_1"))).as("old name left the index").isTrue();
+        assertThat(tagService.createTag("tag_1")).as("old name is free").isPresent();
+
+        NoteDto updatedNote = noteService.getNoteById(note.id()).orElseThrow();
+        assertThat(reactiveNoteRepository.updateContentById(note.id(), "stale", updatedNote.modified(), updatedNote.version() + 1,
+                note.version()).block()).as("note changed since it was read").isZero();
+        assertThat(reactiveTagRepository.update(new TagDto(tag.id(), "tag_5", "AAAAAA", updatedTag.version() + 1),
+                tag.version()).block()).as("tag changed since it was read").isZero();
+        assertThat(tagService.getTagById(tag.id())).contains(updatedTag);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test reactive note tags")
+    void testNoteTags() {
+        NoteDto note = reactiveNoteService.createNote(new NoteContent("note")).block();
+        TagDto tag1 = reactiveTagService.createTag(new TagContent("tag_1", null)).block();
+        TagDto tag2 = reactiveTagService.createTag(new TagContent("tag_2", null)).block();
+        assertThat(note).isNotNull();
+        assertThat(tag1).isNotNull();
+        assertThat(tag2).isNotNull();
+
+        assertThat(reactiveNoteService.addTagToNoteById(note.id(), tag1.id()).block()).isEqualTo(new Result.Done(note));
+        assertThat(reactiveNoteService.addTagToNoteById(note.id(), tag1.id()).block()).isInstanceOf(Result.Error.class);
+        assertThat(reactiveNoteService.addTagToNoteById(note.id(), tag2.id()).block()).isEqualTo(new Result.Done(note));
+        assertThat(reactiveNoteService.addTagToNoteById(note.id(), 1).block()).isEqualTo(Result.NoSuchElement.tag(1));
+        assertThat(reactiveNoteService.addTagToNoteById(1, tag1.id()).block()).isEqualTo(Result.NoSuchElement.note(1));
+
+        assertThat(reactiveTagService.getNoteTags(note).collectList().block()).containsExactlyInAnyOrder(tag1, tag2);
+        assertThat(reactiveTagService.getNoteTagsCount(note.id()).block()).isEqualTo(2);
+        assertThat(reactiveNoteService.getTagNotes(tag1).collectList().block()).containsExactly(note);
+        assertThat(reactiveNoteService.getTagNotesCount(tag1.id()).block()).isEqualTo(1);
+        assertThat(tagService.getNoteTags(note)).containsExactlyInAnyOrder(tag1, tag2);
+
+        assertThat(reactiveNoteService.deleteTagFromNoteById(note.id(), tag2.id()).block()).isEqualTo(new Result.Done(note));
+        assertThat(reactiveNoteService.deleteTagFromNoteById(note.id(), tag2.id()).block()).isInstanceOf(Result.Error.class);
+        assertThat(reactiveTagService.getNoteTags(note).collectList().block()).containsExactly(tag1);
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test reactive delete")
+    void testDelete() {
+        NoteDto note1 = reactiveNoteService.createNote(new NoteContent("note 1")).block();
+        NoteDto note2 = reactiveNoteService.createNote(new NoteContent("note 2")).block();
+        TagDto tag = reactiveTagService.createTag(new TagContent("tag_1", null)).block();
+        assertThat(note1).isNotNull();
+        assertThat(note2).isNotNull();
+        assertThat(tag).isNotNull();
+        reactiveNoteService.addTagToNoteById(note1.id(), tag.id()).block();
+        reactiveNoteService.addTagToNoteById(note2.id(), tag.id()).block();
+
+        assertThat(reactiveNoteService.deleteNoteById(note1.id()).block()).isInstanceOf(Result.Ok.class);
+        assertThat(reactiveNoteService.deleteNoteById(note1.id()).block()).isEqualTo(Result.NoSuchElement.note(note1.id()));
+        assertThat(tombstoneRepository.existsById(note1.id())).as("tombstone").isTrue();
+        assertThat(tombstoneRepository.existsById(note2.id())).isFalse();
+        assertThat(reactiveNoteService.getTagNotes(tag).collectList().block()).containsExactly(note2);
+
+        assertThat(reactiveTagService.deleteTagById(tag.id()).block()).isInstanceOf(Result.Ok.class);
+        assertThat(reactiveTagService.deleteTagById(tag.id()).block()).isEqualTo(Result.NoSuchElement.tag(tag.id()));
+        assertThat(reactiveTagService.getNoteTags(note2).collectList().block()).isEmpty();
+        assertThat(tagService.getTagById(tag.id())).isEmpty();
+        assertThat(tagService.createTag("tag_1")).as("name is free").isPresent();
+    }
+
+}
@@ -0,0 +1,63 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.ServiceExecutor;
+import org.junit.jupiter.api.*;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ServiceExecutorTest {
+
+    private ServiceExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = new ServiceExecutor(1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if calls run on the executor threads")
+    void testCall() {
+        String thread = executor.call(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5));
+
+        assertThat(thread).startsWith("service-");
+        assertThat(executor.statistics().waitTimeMaxMs()).isPositive();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test if calls over the queue capacity are rejected")
+    void testRejectedCall() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mono<Boolean> blocking = executor.call(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        blocking.subscribe();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Mono<String> queued = executor.call(() -> "queued").cache();
+        queued.subscribe();
+
+        assertThat(executor.statistics().queued()).isEqualTo(1);
+        assertThatThrownBy(() -> executor.call(() -> "rejected").block(Duration.ofSeconds(5)))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.statistics().rejected()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(queued.block(Duration.ofSeconds(5))).isEqualTo("queued");
+    }
+
+}
@@ -0,0 +1,109 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.StreamPublisher;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+import org.reactivestreams.Subscription;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.SignalType;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class StreamPublisherTest {
+
+    private StreamPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:streams;DB_CLOSE_DELAY=-1");
+        this.publisher = new StreamPublisher(new DataSourceTransactionManager(dataSource), 1, Duration.ofMillis(300));
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if streams over the limit are rejected until a stream ends")
+    void testRejectedStream() throws Exception {
+        Stalled first = new Stalled();
+        publisher.publish(() -> Stream.of(1, 2, 3)).subscribe(first);
+        assertThat(first.received.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> publisher.publish(() -> Stream.of(1)).blockLast(Duration.ofSeconds(5)))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        first.cancel();
+        assertThat(first.ended.get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(eventually(() -> publisher.publish(() -> Stream.of(1, 2)).collectList().block(Duration.ofSeconds(5))))
+                .containsExactly(1, 2);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test if a stream without demand fails and releases its permit")
+    void testIdleStream() throws Exception {
+        Stalled stalled = new Stalled();
+        publisher.publish(() -> Stream.of(1, 2, 3)).subscribe(stalled);
+
+        assertThat(stalled.ended.get(5, TimeUnit.SECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(publisher.publish(() -> Stream.of(1, 2)).collectList().block(Duration.ofSeconds(5)))
+                .containsExactly(1, 2);
+    }
+
+    /**
+     * The permit is released by the worker after the cancellation reaches it.
+     */
+    private static <T> List<T> eventually(Supplier<List<T>> call) throws InterruptedException {
+        for (int i = 0; ; i++) {
+            try {
+                return call.get();
+            } catch (RejectedExecutionException e) {
+                if (i == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Requests one row and nothing more.
+     */
+    private static class Stalled extends BaseSubscriber<Object> {
+
+        final CountDownLatch received = new CountDownLatch(1);
+        final CompletableFuture<Throwable> ended = new CompletableFuture<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(Object value) {
+            received.countDown();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            ended.complete(throwable);
+        }
+
+        @Override
+        protected void hookFinally(SignalType type) {
+            ended.complete(null);
+        }
+    }
+
+}
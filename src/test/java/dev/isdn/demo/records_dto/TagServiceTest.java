@@ -1,15 +1,25 @@
 package dev.isdn.demo.records_dto;
 
+import dev.isdn.demo.records_dto.app.domain.common.CollectionVersion;
 import dev.isdn.demo.records_dto.app.domain.common.Constants;
+import dev.isdn.demo.records_dto.app.domain.common.Cursor;
+import dev.isdn.demo.records_dto.app.domain.common.CursorPage;
 import dev.isdn.demo.records_dto.app.domain.common.Result;
 import dev.isdn.demo.records_dto.app.domain.tag.*;
 import dev.isdn.demo.records_dto.app.domain.tag.Tag;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +40,9 @@ public class TagServiceTest {
     @Autowired
     TagService tagService;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @AfterEach
     void tearDown() {
         tagRepository.deleteAllInBatch();
@@ -319,4 +332,181 @@ public class TagServiceTest {
         assertThat(nullResult).as("result should be Error").isExactlyInstanceOf(Result.Error.class);
     }
 
+    @Test
+    @Order(12)
+    @DisplayName("Test get tags page by page")
+    void testGetTagsPage() {
+        int tagsNum = 50, limit = 10;
+        IntStream.range(0, tagsNum).forEach(i -> tagService.createTag("test_tag_" + i));
+
+        CursorPage<TagDto> first = tagService.getTagsPage(Cursor.FIRST, limit);
+        assertThat(first.items()).hasSize(limit).isSortedAccordingTo(Comparator.comparingLong(TagDto::id));
+        assertThat(first.next()).isNotNull();
+
+        List<TagDto> tags = new ArrayList<>(first.items());
+        CursorPage<TagDto> page = first;
+        while (page.next() != null) {
+            page = tagService.getTagsPage(Cursor.decode.apply(page.next()).orElseThrow(), limit);
+            tags.addAll(page.items());
+        }
+
+        assertThat(tags).as("pages contain all tags once")
+                .hasSize(tagsNum)
+                .containsExactlyInAnyOrderElementsOf(tagService.getAllTags());
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Test tags batch creation")
+    void testCreateTags() {
+        tagService.createTag("test_tag_taken");
+        List<TagContent> contents = Arrays.asList(
+                new TagContent("test_tag_1", null),
+                new TagContent(" test_tag_2 ", "aaBBcc"),
+                new TagContent("test_tag_1", "FFFFFF"),
+                new TagContent("test_tag_taken", null),
+                new TagContent("test#tag", null),
+                new TagContent("test_tag_3", "ff>eea"),
+                null
+        );
+
+        List<Result> results = tagService.createTags(contents);
+
+        assertThat(results).hasSize(contents.size());
+        assertThat(results.get(0)).as("tag with default color")
+                .isInstanceOfSatisfying(Result.Done.class, r -> assertThat(r.element())
+                        .isInstanceOfSatisfying(TagDto.class, t -> {
+                            assertThat(t.id()).isGreaterThan(0);
+                            assertThat(t.name()).isEqualTo("test_tag_1");
+                            assertThat(t.color()).isEqualTo(Constants.DEFAULT_COLOR);
+                        }));
+        assertThat(results.get(1)).as("tag with trimmed name and color")
+                .isInstanceOfSatisfying(Result.Done.class, r -> assertThat(r.element())
+                        .isInstanceOfSatisfying(TagDto.class, t -> {
+                            assertThat(t.name()).isEqualTo("test_tag_2");
+                            assertThat(t.color()).isEqualTo("AABBCC");
+                        }));
+        assertThat(results.subList(2, contents.size())).as("duplicate, taken and invalid tags")
+                .allMatch(r -> r instanceof Result.Error);
+        assertThat(tagService.getAllTags()).as("only valid tags are created")
+                .extracting(TagDto::name)
+                .containsExactlyInAnyOrder("test_tag_taken", "test_tag_1", "test_tag_2");
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Test tag names changed past the service")
+    void testTagNamesChangedPastService() {
+        TagDto tagDto = tagService.createTag("test_tag_1").orElseThrow();
+        tagRepository.updateTagNameById(tagDto.id(), "test_tag_2");
+
+        assertThat(tagService.createTag("test_tag_2")).as("conflict with a name missing in the index")
+                .isEmpty();
+        assertThat(tagService.createTag("test_tag_1")).as("name released past the index")
+                .isPresent();
+        assertThat(tagService.getAllTags())
+                .extracting(TagDto::name)
+                .containsExactlyInAnyOrder("test_tag_1", "test_tag_2");
+        assertThat(tagService.updateTagContent(tagDto, new TagContent(" test_tag_2 ", "FFFFFF")))
+                .as("name is not changed to itself")
+                .isPresent();
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("Test cached tags are invalidated on update and delete")
+    void testTagCache() {
+        TagDto tagDto = tagService.createTag("test_tag").orElseThrow();
+        long hits = tagService.getCacheStatistics().hits();
+
+        assertThat(tagService.getTagById(tagDto.id())).contains(tagDto);
+        assertThat(tagService.getTagById(tagDto.id())).contains(tagDto);
+        assertThat(tagService.getCacheStatistics().hits()).as("second lookup is a hit").isEqualTo(hits + 1);
+
+        TagDto updated = tagService.updateTagColor(tagDto, "AAAAAA").orElseThrow();
+        assertThat(tagService.getTagById(tagDto.id())).as("updated tag").contains(updated);
+        updated = tagService.updateTagName(updated, "test_tag_updated").orElseThrow();
+        assertThat(tagService.getTagById(tagDto.id())).as("renamed tag").contains(updated);
+        updated = tagService.updateTagContent(updated, new TagContent("test_tag", "BBBBBB")).orElseThrow();
+        assertThat(tagService.getTagById(tagDto.id())).as("updated tag content").contains(updated);
+
+        tagService.deleteTagById(tagDto.id());
+        assertThat(tagService.getTagById(tagDto.id())).as("deleted tag").isEmpty();
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("Test tag content update by ID")
+    void testUpdateTagContentById() {
+        TagDto tag = tagService.createTag("test_tag_1").orElseThrow();
+        tagService.createTag("test_tag_2");
+
+        Result updated = tagService.updateTagContentById(tag.id(), new TagContent("test_tag_3", "aaaaaa"));
+        assertThat(updated).isInstanceOf(Result.Done.class);
+        TagDto updatedTag = (TagDto) ((Result.Done) updated).element();
+        assertThat(updatedTag).isEqualTo(new TagDto(tag.id(), "test_tag_3", "AAAAAA", updatedTag.version()));
+        assertThat(updatedTag.version()).isGreaterThan(tag.version());
+        assertThat(tagService.updateTagContentById(tag.id(), new TagContent("test_tag_2", "aaaaaa")))
+                .as("taken name").isEqualTo(new Result.Error());
+        assertThat(tagService.updateTagContentById(tag.id(), new TagContent("test_tag_3", "not a color")))
+                .as("invalid color").isEqualTo(new Result.Error());
+        assertThat(tagService.updateTagContentById(tag.id() + 1, new TagContent("test_tag_4", "aaaaaa")))
+                .isEqualTo(Result.NoSuchElement.tag(tag.id() + 1));
+        assertThat(tagService.getTagById(tag.id())).contains(updatedTag);
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Test tags version")
+    void testTagsVersion() {
+        assertThat(tagService.getTagsVersion()).isEqualTo(new CollectionVersion(0, 0));
+
+        TagDto tag = tagService.createTag("test_tag_1").orElseThrow();
+        CollectionVersion created = tagService.getTagsVersion();
+        assertThat(created).isEqualTo(new CollectionVersion(1, tag.version()));
+
+        TagDto updated = tagService.updateTagName(tag, "test_tag_2").orElseThrow();
+        assertThat(updated.version()).isGreaterThan(tag.version());
+        assertThat(tagService.getTagsVersion()).isEqualTo(new CollectionVersion(1, updated.version()));
+
+        assertThat(tagService.deleteTagById(tag.id())).isEqualTo(new Result.Ok());
+        assertThat(tagService.getTagsVersion()).as("deleted").isEqualTo(new CollectionVersion(0, 0));
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Test tags batch creation with a name taken by a concurrent transaction")
+    void testCreateTagsRace() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> concurrent = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    tagService.createTag("test_tag_raced");
+                    inserted.countDown();
+                    try {
+                        commit.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // the name is not committed yet, so the batch passes the check and waits for the lock of the name
+        CompletableFuture<List<Result>> batch = CompletableFuture.supplyAsync(() -> tagService.createTags(List.of(
+                new TagContent("test_tag_1", null),
+                new TagContent("test_tag_raced", null),
+                new TagContent("test_tag_2", null))));
+        TimeUnit.MILLISECONDS.sleep(500);
+        commit.countDown();
+        concurrent.get(5, TimeUnit.SECONDS);
+
+        List<Result> results = batch.get(10, TimeUnit.SECONDS);
+        assertThat(results.get(0)).isInstanceOf(Result.Done.class);
+        assertThat(results.get(1)).as("name taken after the check").isEqualTo(new Result.Error());
+        assertThat(results.get(2)).isInstanceOf(Result.Done.class);
+        assertThat(tagService.getAllTags())
+                .extracting(TagDto::name)
+                .containsExactlyInAnyOrder("test_tag_raced", "test_tag_1", "test_tag_2");
+    }
+
 }
@@ -0,0 +1,168 @@
+package dev.isdn.demo.records_dto;
+
+import dev.isdn.demo.records_dto.app.domain.common.BlockSequenceGenerator;
+import dev.isdn.demo.records_dto.app.domain.common.SequenceGenerator;
+import dev.isdn.demo.records_dto.app.domain.common.TimeOrderedSequenceGenerator;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TimeOrderedSequenceGeneratorTest {
+
+    private SequenceGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        this.generator = new TimeOrderedSequenceGenerator();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test if numbers in a sequence are unique, positive and ascending")
+    void testOrderedNumbers(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 2_000_000;
+        long prev = 0L;
+
+        for (int i = 0; i < amount; i++) {
+            long n = generator.getNumber();
+            assertThat(n).isGreaterThan(prev);
+            prev = n;
+        }
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated "
+                + amount + " ascending numbers");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test number layout")
+    void testNumberLayout() {
+        long workerId = 517;
+        long before = Instant.now().toEpochMilli();
+        long n = new TimeOrderedSequenceGenerator(workerId).getNumber();
+
+        assertThat(n).isPositive();
+        assertThat(TimeOrderedSequenceGenerator.workerOf(n)).isEqualTo(workerId);
+        assertThat(TimeOrderedSequenceGenerator.timestampOf(n)).isBetween(before, Instant.now().toEpochMilli());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test if sequences are unique in two instances")
+    void testTwoInstances(TestReporter testReporter, TestInfo testInfo) {
+        int amount = 50_000;
+        SequenceGenerator generator1 = new TimeOrderedSequenceGenerator();
+        SequenceGenerator generator2 = new TimeOrderedSequenceGenerator();
+
+        Long[] nums1 = new Long[amount];
+        Long[] nums2 = new Long[amount];
+
+        IntStream.range(0, amount).forEach(i -> {
+            nums1[i] = generator1.getNumber();
+            nums2[i] = generator2.getNumber();
+        });
+
+        Set<Long> results = new HashSet<>(Arrays.asList(nums1));
+        results.retainAll(List.of(nums2));
+
+        assertThat(results).isEmpty();
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": generated two sequences of "
+                + amount + " unique numbers");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test if numbers are unique across threads")
+    void testConcurrentThreads(TestReporter testReporter, TestInfo testInfo) throws Exception {
+        int threads = 32;
+        int amount = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try {
+            IntStream.range(0, threads).forEach(t -> futures.add(executor.submit(() -> {
+                long[] nums = new long[amount];
+                for (int i = 0; i < amount; i++) {
+                    nums[i] = generator.getNumber();
+                }
+                return nums;
+            })));
+
+            Set<Long> results = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                Arrays.stream(future.get(1, TimeUnit.MINUTES)).forEach(results::add);
+            }
+
+            assertThat(results).hasSize(threads * amount);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        testReporter.publishEntry(testInfo.getDisplayName() + ": " + threads + " threads generated "
+                + threads * amount + " unique numbers");
+    }
+
+    /**
+     * Run with {@code mvn test -Dtest=TimeOrderedSequenceGeneratorTest -Dbenchmark=true [-Dbenchmark.rows=1000000]}.
+     */
+    @Test
+    @Order(5)
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Compare insert throughput and index size with random numbers")
+    void benchmarkInserts(@TempDir Path dir, TestReporter testReporter, TestInfo testInfo) throws SQLException {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        Map<String, SequenceGenerator> generators = new LinkedHashMap<>();
+        generators.put("random", new BlockSequenceGenerator());
+        generators.put("time-ordered", new TimeOrderedSequenceGenerator());
+
+        for (Map.Entry<String, SequenceGenerator> entry : generators.entrySet()) {
+            Path file = dir.resolve(entry.getKey());
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:" + file, "sa", "sa")) {
+                connection.createStatement().execute("CREATE TABLE bench(id BIGINT PRIMARY KEY, modified BIGINT NOT NULL)");
+                connection.setAutoCommit(false);
+
+                long startTime = System.nanoTime();
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO bench(id, modified) VALUES (?, ?)")) {
+                    for (int i = 1; i <= rows; i++) {
+                        insert.setLong(1, entry.getValue().getNumber());
+                        insert.setLong(2, i);
+                        insert.addBatch();
+                        if (i % 1_000 == 0 || i == rows) {
+                            insert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                }
+                long resultTime = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+
+                connection.createStatement().execute("CHECKPOINT SYNC");
+                ResultSet count = connection.createStatement().executeQuery("SELECT COUNT(*) FROM bench");
+                count.next();
+                assertThat(count.getLong(1)).isEqualTo(rows);
+                ResultSet space = connection.createStatement().executeQuery("SELECT DISK_SPACE_USED('BENCH')");
+                space.next();
+                assertThat(space.getLong(1)).isPositive();
+
+                String report = testInfo.getDisplayName() + ": " + entry.getKey() + " - inserted "
+                        + rows + " rows, took: " + resultTime + " milliseconds. Approximately " + rows/resultTime
+                        + " rows/ms, table size: " + space.getLong(1) + " bytes, file size: "
+                        + Files.size(Path.of(file + ".mv.db")) + " bytes.";
+                testReporter.publishEntry(report);
+            } catch (java.io.IOException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+}